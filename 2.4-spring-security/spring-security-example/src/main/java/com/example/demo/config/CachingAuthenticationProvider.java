@@ -0,0 +1,75 @@
+package com.example.demo.config;
+
+import com.example.demo.service.VerifiedCredentialCache;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+/**
+ * AuthenticationProvider que evita repetir BCrypt en cada petición HTTP Basic.
+ *
+ * Flujo:
+ * 1. Si el par (usuario, contraseña) está en VerifiedCredentialCache y la contraseña
+ *    guardada en BD no ha cambiado desde entonces, la autenticación es inmediata.
+ * 2. Si no, se delega en el proveedor real (DaoAuthenticationProvider + BCrypt)
+ *    y, si tiene éxito, se guarda el resultado en la caché.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final UserDetailsService userDetailsService;
+    private final VerifiedCredentialCache credentialCache;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate,
+                                         UserDetailsService userDetailsService,
+                                         VerifiedCredentialCache credentialCache) {
+        this.delegate = delegate;
+        this.userDetailsService = userDetailsService;
+        this.credentialCache = credentialCache;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+        String password = credentials.toString();
+
+        UserDetails cached = credentialCache.get(username, password);
+        if (cached != null && isStillValid(cached)) {
+            return UsernamePasswordAuthenticationToken.authenticated(
+                    User.withUserDetails(cached).build(), null, cached.getAuthorities());
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails userDetails) {
+            // Guardamos una copia: ProviderManager borrará la contraseña del principal original
+            credentialCache.put(username, password, User.withUserDetails(userDetails).build());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    /**
+     * Comprueba contra el usuario actual (servido desde la caché de usuarios, sin BCrypt)
+     * que la contraseña no haya cambiado y que la cuenta siga habilitada.
+     */
+    private boolean isStillValid(UserDetails cached) {
+        UserDetails current = userDetailsService.loadUserByUsername(cached.getUsername());
+        boolean valid = current.isEnabled() && current.getPassword().equals(cached.getPassword());
+        if (!valid) {
+            credentialCache.evictUser(cached.getUsername());
+        }
+        return valid;
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.demo.config;
 
+import com.example.demo.service.VerifiedCredentialCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -37,6 +42,28 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Proveedor de autenticación con usuarios de la BD y contraseñas BCrypt.
+     * 
+     * Con security.credential-cache.enabled=true se envuelve en CachingAuthenticationProvider,
+     * que recuerda durante un TTL corto las credenciales ya verificadas para no
+     * ejecutar BCrypt en cada petición HTTP Basic.
+     */
+    @Bean
+    public AuthenticationProvider authenticationProvider(
+            UserDetailsService userDetailsService,
+            VerifiedCredentialCache credentialCache,
+            @Value("${security.credential-cache.enabled:false}") boolean credentialCacheEnabled) {
+        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
+        authProvider.setUserDetailsService(userDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder());
+
+        if (!credentialCacheEnabled) {
+            return authProvider;
+        }
+        return new CachingAuthenticationProvider(authProvider, userDetailsService, credentialCache);
+    }
+
     /**
      * Bean para encriptar contraseñas.
      * BCrypt es el estándar actual recomendado por Spring Security.
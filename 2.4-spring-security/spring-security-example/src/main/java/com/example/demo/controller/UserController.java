@@ -1,11 +1,10 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.User;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,27 +14,19 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
 
-    private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserService userService;
 
     // Endpoint Público: Crear usuario
+    // UserService encripta la contraseña, asigna el rol por defecto e invalida las cachés del usuario
     @PostMapping
     public ResponseEntity<User> createUser(@RequestBody User user) {
-        // IMPORTANTE: Encriptar la contraseña antes de guardar
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        
-        // Asignar rol por defecto si no viene
-        if (user.getRole() == null) {
-            user.setRole("USER");
-        }
-
-        User savedUser = userRepository.save(user);
+        User savedUser = userService.create(user);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
     }
 
     // Endpoint Privado: Listar usuarios
     @GetMapping
     public List<User> getAllUsers() {
-        return userRepository.findAll();
+        return userService.findAll();
     }
-}
\ No newline at end of file
+}
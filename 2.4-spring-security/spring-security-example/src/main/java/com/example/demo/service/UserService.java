@@ -4,6 +4,7 @@ import com.example.demo.exception.BusinessRuleException;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,6 +17,8 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final VerifiedCredentialCache credentialCache;
 
     @Transactional
     public User create(User user) {
@@ -25,9 +28,15 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setEnabled(true);
         if (user.getRole() == null || user.getRole().isEmpty()) {
-            user.setRole("ROLE_USER");
+            // Sin prefijo "ROLE_": CustomUserDetailsService usa roles(), que lo añade
+            user.setRole("USER");
         }
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+
+        // Invalidar cualquier copia en caché de este usuario (datos y credenciales verificadas)
+        userCache.removeUserFromCache(savedUser.getUsername());
+        credentialCache.evictUser(savedUser.getUsername());
+        return savedUser;
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Caché de credenciales HTTP Basic ya verificadas.
+ *
+ * Con HTTP Basic el cliente envía usuario y contraseña en cada petición, y
+ * comprobarlos con BCrypt cuesta del orden de 100 ms. Esta caché recuerda
+ * durante un tiempo corto qué pares (usuario, contraseña) ya se verificaron.
+ *
+ * Nunca se guarda la contraseña en claro: la clave es un HMAC-SHA256 de
+ * (usuario, contraseña) con una sal aleatoria generada al arrancar, así que
+ * las entradas no sirven fuera de este proceso.
+ */
+@Component
+public class VerifiedCredentialCache {
+
+    private final Cache<String, UserDetails> cache;
+    private final SecretKeySpec salt;
+
+    public VerifiedCredentialCache(@Value("${security.credential-cache.ttl:60s}") Duration ttl,
+                                   @Value("${security.credential-cache.max-size:10000}") long maxSize,
+                                   MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedCredentials");
+
+        byte[] saltBytes = new byte[32];
+        new SecureRandom().nextBytes(saltBytes);
+        this.salt = new SecretKeySpec(saltBytes, "HmacSHA256");
+    }
+
+    /**
+     * Devuelve el usuario si este par (usuario, contraseña) ya se verificó.
+     *
+     * @return UserDetails guardado al verificar, o null si no está en caché
+     */
+    public UserDetails get(String username, String password) {
+        return cache.getIfPresent(key(username, password));
+    }
+
+    /**
+     * Recuerda un par (usuario, contraseña) que acaba de verificarse con éxito.
+     */
+    public void put(String username, String password, UserDetails userDetails) {
+        cache.put(key(username, password), userDetails);
+    }
+
+    /**
+     * Elimina todas las credenciales verificadas de un usuario
+     * (por ejemplo, cuando cambia su contraseña).
+     */
+    public void evictUser(String username) {
+        cache.asMap().values().removeIf(userDetails -> userDetails.getUsername().equals(username));
+    }
+
+    private String key(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(salt);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0); // Separador para que ("ab","c") y ("a","bc") no colisionen
+            return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 está garantizado en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.config;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.CustomUserDetailsService;
+import com.example.demo.service.VerifiedCredentialCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Caché de credenciales verificadas: se ahorra BCrypt en los aciertos, pero nunca
+ * acepta una contraseña distinta ni sobrevive a un cambio de contraseña, a
+ * deshabilitar la cuenta o a una escritura del usuario.
+ */
+class CachingAuthenticationProviderTest {
+
+    // Coste bajo para que las pruebas no tarden; el flujo es el mismo que con el coste por defecto
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final VerifiedCredentialCache credentialCache =
+            new VerifiedCredentialCache(Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+    private final AtomicInteger bcryptChecks = new AtomicInteger();
+    private final User alice = new User("alice", "alice@example.com", passwordEncoder.encode("secret"), "USER");
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findByUsername("alice")).thenAnswer(invocation -> Optional.of(alice));
+        CustomUserDetailsService userDetailsService =
+                new CustomUserDetailsService(userRepository, new NullUserCache(), new SimpleMeterRegistry());
+
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider();
+        dao.setUserDetailsService(userDetailsService);
+        dao.setPasswordEncoder(passwordEncoder);
+        AuthenticationProvider counting = new AuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                bcryptChecks.incrementAndGet();
+                return dao.authenticate(authentication);
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return dao.supports(authentication);
+            }
+        };
+        provider = new CachingAuthenticationProvider(counting, userDetailsService, credentialCache);
+    }
+
+    @Test
+    void repeatedLoginIsServedFromCache() {
+        Authentication first = provider.authenticate(login("alice", "secret"));
+        Authentication second = provider.authenticate(login("alice", "secret"));
+
+        assertThat(first.isAuthenticated()).isTrue();
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getName()).isEqualTo("alice");
+        assertThat(second.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        assertThat(bcryptChecks).hasValue(1);
+    }
+
+    @Test
+    void wrongPasswordIsRejectedAfterCachedSuccess() {
+        provider.authenticate(login("alice", "secret"));
+
+        assertThatThrownBy(() -> provider.authenticate(login("alice", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(bcryptChecks).hasValue(2);
+    }
+
+    @Test
+    void passwordChangeInvalidatesCachedCredentials() {
+        provider.authenticate(login("alice", "secret"));
+
+        alice.setPassword(passwordEncoder.encode("changed"));
+
+        assertThatThrownBy(() -> provider.authenticate(login("alice", "secret")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(credentialCache.get("alice", "secret")).isNull();
+        assertThat(provider.authenticate(login("alice", "changed")).isAuthenticated()).isTrue();
+    }
+
+    @Test
+    void disablingTheAccountInvalidatesCachedCredentials() {
+        provider.authenticate(login("alice", "secret"));
+
+        alice.setEnabled(false);
+
+        assertThatThrownBy(() -> provider.authenticate(login("alice", "secret")))
+                .isInstanceOf(DisabledException.class);
+        assertThat(credentialCache.get("alice", "secret")).isNull();
+    }
+
+    @Test
+    void evictingTheUserForcesBcryptAgain() {
+        provider.authenticate(login("alice", "secret"));
+
+        // Lo que hace UserService al escribir el usuario
+        credentialCache.evictUser("alice");
+        provider.authenticate(login("alice", "secret"));
+
+        assertThat(bcryptChecks).hasValue(2);
+    }
+
+    private static UsernamePasswordAuthenticationToken login(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
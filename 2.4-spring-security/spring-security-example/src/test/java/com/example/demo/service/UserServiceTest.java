@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Escribir un usuario invalida sus copias en caché (UserDetails y credenciales verificadas).
+ */
+class UserServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final CaffeineUserCache userCache = new CaffeineUserCache(100, Duration.ofMinutes(5), registry);
+    private final VerifiedCredentialCache credentialCache =
+            new VerifiedCredentialCache(Duration.ofMinutes(1), 100, registry);
+    private final UserService userService =
+            new UserService(userRepository, passwordEncoder, userCache, credentialCache);
+
+    @BeforeEach
+    void setUp() {
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hash:" + invocation.getArgument(0));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void createEvictsCachedUser() {
+        UserDetails stale = userDetails("alice", "hash:old");
+        userCache.putUserInCache(stale);
+        credentialCache.put("alice", "old", stale);
+
+        userService.create(new User("alice", "alice@example.com", "new", null));
+
+        assertThat(userCache.getUserFromCache("alice")).isNull();
+        assertThat(credentialCache.get("alice", "old")).isNull();
+    }
+
+    @Test
+    void createKeepsOtherUsersCached() {
+        UserDetails bob = userDetails("bob", "hash:secret");
+        userCache.putUserInCache(bob);
+        credentialCache.put("bob", "secret", bob);
+
+        userService.create(new User("alice", "alice@example.com", "new", null));
+
+        assertThat(userCache.getUserFromCache("bob")).isSameAs(bob);
+        assertThat(credentialCache.get("bob", "secret")).isSameAs(bob);
+    }
+
+    @Test
+    void createAssignsDefaultRoleAndEncodesPassword() {
+        User saved = userService.create(new User("alice", "alice@example.com", "new", null));
+
+        assertThat(saved.getRole()).isEqualTo("USER");
+        assertThat(saved.getPassword()).isEqualTo("hash:new");
+        assertThat(saved.isEnabled()).isTrue();
+    }
+
+    private static UserDetails userDetails(String username, String password) {
+        return org.springframework.security.core.userdetails.User.withUsername(username)
+                .password(password)
+                .roles("USER")
+                .build();
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.demo.config;
 
 import com.example.demo.service.JwtService;
+import com.example.demo.service.UserStatusCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -22,8 +26,10 @@ import java.io.IOException;
  * 
  * Este filtro intercepta todas las peticiones HTTP y:
  * 1. Extrae el token JWT del header "Authorization"
- * 2. Valida el token usando JwtService
+ * 2. Valida el token usando JwtService (una sola verificación por petición,
+ *    reutilizando los claims en caché si el token ya se verificó antes)
  * 3. Carga los detalles del usuario desde la base de datos
+ *    (o, con jwt.stateless.enabled=true, los construye desde los claims del token)
  * 4. Establece la autenticación en el SecurityContext de Spring Security
  * 
  * Extiende OncePerRequestFilter para asegurar que el filtro se ejecute
@@ -35,6 +41,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+
+    /**
+     * Modo "stateless claims": la identidad y los roles se toman del token
+     * y no se consulta la base de datos en cada petición.
+     */
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean statelessClaims;
 
     /**
      * Método principal del filtro que se ejecuta en cada petición.
@@ -62,16 +76,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Extraer el token (remover el prefijo "Bearer ")
         final String jwt = authHeader.substring(7);
         
-        // Extraer el username del token
-        final String username = jwtService.extractUsername(jwt);
+        // Verificar el token y extraer sus claims una única vez
+        final Claims claims = jwtService.extractAllClaims(jwt);
+        final String username = claims.getSubject();
 
         // Si hay username y no hay autenticación en el contexto actual
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // Cargar los detalles del usuario desde la base de datos
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = resolveUserDetails(username, claims);
 
             // Validar el token con los detalles del usuario
-            if (jwtService.validateToken(jwt, userDetails)) {
+            if (userDetails != null && jwtService.validateToken(claims, userDetails)) {
                 // Crear el objeto de autenticación
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -90,4 +104,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Continuar con la cadena de filtros
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Obtiene los detalles del usuario autenticado.
+     * 
+     * - Modo por defecto: se cargan desde la base de datos con UserDetailsService.
+     * - Modo stateless: se construyen con el subject y las authorities del token;
+     *   solo se comprueba (desde una caché en memoria) que el usuario siga activo.
+     * 
+     * @return UserDetails del usuario, o null si el usuario está deshabilitado
+     */
+    private UserDetails resolveUserDetails(String username, Claims claims) {
+        if (!statelessClaims) {
+            // Cargar los detalles del usuario desde la base de datos
+            return this.userDetailsService.loadUserByUsername(username);
+        }
+
+        if (!userStatusCache.isActive(username)) {
+            return null;
+        }
+
+        return User.withUsername(username)
+                .password("") // No hay credenciales: el token ya fue verificado
+                .authorities(jwtService.extractAuthorities(claims))
+                .build();
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.demo.config;
+
+import com.example.demo.service.CaffeineUserCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+
+import java.time.Duration;
+
+/**
+ * Configuración de la caché de usuarios usada por CustomUserDetailsService.
+ *
+ * Se puede desactivar con security.user-cache.enabled=false; en ese caso se usa
+ * NullUserCache y cada carga de usuario vuelve a ir a la base de datos.
+ */
+@Configuration
+public class UserCacheConfig {
+
+    @Bean
+    public UserCache userCache(@Value("${security.user-cache.enabled:true}") boolean enabled,
+                               @Value("${security.user-cache.max-size:10000}") long maxSize,
+                               @Value("${security.user-cache.ttl:5m}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        if (!enabled) {
+            return new NullUserCache();
+        }
+        return new CaffeineUserCache(maxSize, ttl, meterRegistry);
+    }
+}
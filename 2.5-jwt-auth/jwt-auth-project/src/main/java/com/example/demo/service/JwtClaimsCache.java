@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de claims de tokens JWT ya verificados.
+ *
+ * Verificar un token implica calcular la firma HMAC y parsear el JSON del payload.
+ * Como el mismo token se envía en muchas peticiones seguidas, guardamos los claims
+ * ya verificados para no repetir ese trabajo en cada petición.
+ *
+ * Características:
+ * - La clave es el hash SHA-256 del token (nunca guardamos el token en claro)
+ * - Cada entrada caduca en el momento de expiración (exp) del propio token
+ * - Caffeine acota el tamaño a jwt.cache.max-size: al llenarse expulsa los tokens
+ *   menos usados en O(1), sin recorrer la caché en cada token nuevo
+ * - Métricas de aciertos, fallos y tamaño en Micrometer (cache.* con cache=jwtClaims)
+ */
+@Component
+public class JwtClaimsCache {
+
+    private final Clock clock;
+    private final Cache<String, CachedClaims> entries;
+
+    @Autowired
+    public JwtClaimsCache(@Value("${jwt.cache.max-size:10000}") long maxSize, MeterRegistry meterRegistry) {
+        this(maxSize, Clock.systemUTC(), Ticker.systemTicker(), meterRegistry);
+    }
+
+    JwtClaimsCache(long maxSize, Clock clock, Ticker ticker, MeterRegistry meterRegistry) {
+        this.clock = clock;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiration())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "jwtClaims");
+    }
+
+    /**
+     * Busca los claims de un token ya verificado.
+     *
+     * @param token Token JWT
+     * @return Claims en caché, o null si no están o el token ya expiró
+     */
+    public Claims get(String token) {
+        CachedClaims cached = entries.getIfPresent(digest(token));
+        return cached != null ? cached.claims() : null;
+    }
+
+    /**
+     * Guarda los claims de un token que acaba de verificarse correctamente.
+     *
+     * @param token Token JWT
+     * @param claims Claims verificados del token
+     */
+    public void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            // Sin fecha de expiración no sabemos cuándo invalidar la entrada
+            return;
+        }
+        entries.put(digest(token), new CachedClaims(claims, expiration.getTime()));
+    }
+
+    public long getHits() {
+        return entries.stats().hitCount();
+    }
+
+    public long getMisses() {
+        return entries.stats().missCount();
+    }
+
+    /**
+     * Número de tokens en caché tras aplicar las expulsiones pendientes.
+     */
+    long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 está garantizado en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CachedClaims(Claims claims, long expiresAt) {
+    }
+
+    /**
+     * Vida de cada entrada: lo que le queda al token hasta su exp.
+     * Leer la entrada no la alarga.
+     */
+    private class UntilTokenExpiration implements Expiry<String, CachedClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedClaims value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAt() - clock.millis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
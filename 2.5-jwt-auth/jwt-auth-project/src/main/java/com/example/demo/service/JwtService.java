@@ -1,16 +1,25 @@
 package com.example.demo.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -24,16 +33,39 @@ import java.util.function.Function;
  * - Generar tokens JWT con información del usuario
  * - Validar tokens JWT recibidos
  * - Extraer información del token (username, claims, etc.)
+ *
+ * La clave de firma y el parser se construyen una sola vez al arrancar,
+ * y los claims ya verificados se reutilizan desde JwtClaimsCache.
  */
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final JwtClaimsCache claimsCache;
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * Construye la clave de firma y el parser una única vez.
+     *
+     * Ambos son inmutables y thread-safe, por lo que no tiene sentido
+     * recrearlos en cada petición.
+     */
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
     /**
      * Genera un token JWT para un usuario autenticado.
      * 
@@ -62,7 +94,7 @@ public class JwtService {
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -74,38 +106,56 @@ public class JwtService {
      * @return true si el token es válido, false en caso contrario
      */
     public boolean validateToken(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(extractAllClaims(token), userDetails);
     }
 
     /**
-     * Extrae el username del token JWT.
-     * 
-     * @param token Token JWT
-     * @return Username extraído del token
+     * Valida claims ya extraídos contra un usuario específico.
+     *
+     * Permite al filtro JWT parsear el token una sola vez por petición.
+     *
+     * @param claims Claims verificados del token
+     * @param userDetails Información del usuario
+     * @return true si el token es válido, false en caso contrario
      */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date());
     }
 
     /**
-     * Verifica si el token ha expirado.
+     * Extrae los roles (authorities) guardados en el token.
      * 
-     * @param token Token JWT
-     * @return true si el token ha expirado, false en caso contrario
+     * generateToken serializa las authorities como objetos {"authority": "ROLE_X"},
+     * así que aceptamos tanto ese formato como una lista de Strings.
+     * 
+     * @param claims Claims verificados del token
+     * @return Lista de GrantedAuthority del usuario
      */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public List<GrantedAuthority> extractAuthorities(Claims claims) {
+        Object raw = claims.get("authorities");
+        if (!(raw instanceof Collection<?> values)) {
+            return Collections.emptyList();
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>(values.size());
+        for (Object value : values) {
+            Object authority = value instanceof Map<?, ?> map ? map.get("authority") : value;
+            if (authority != null) {
+                authorities.add(new SimpleGrantedAuthority(authority.toString()));
+            }
+        }
+        return authorities;
     }
 
     /**
-     * Extrae la fecha de expiración del token.
+     * Extrae el username del token JWT.
      * 
      * @param token Token JWT
-     * @return Fecha de expiración
+     * @return Username extraído del token
      */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public String extractUsername(String token) {
+        return extractClaim(token, Claims::getSubject);
     }
 
     /**
@@ -123,24 +173,18 @@ public class JwtService {
     /**
      * Extrae todos los claims del token.
      * 
+     * Si el token ya fue verificado antes, los claims se obtienen de la caché.
+     * Si no, se verifica la firma, se parsea el payload y se guarda el resultado.
+     * 
      * @param token Token JWT
      * @return Claims del token
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    /**
-     * Obtiene la clave de firma para el token.
-     * 
-     * @return SecretKey para firmar y verificar tokens
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public Claims extractAllClaims(String token) {
+        Claims claims = claimsCache.get(token);
+        if (claims == null) {
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+            claimsCache.put(token, claims);
+        }
+        return claims;
     }
 }
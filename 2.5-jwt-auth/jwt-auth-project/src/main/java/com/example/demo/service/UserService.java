@@ -6,6 +6,7 @@ import com.example.demo.exception.BusinessRuleException;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +30,8 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final UserStatusCache userStatusCache;
 
     /**
      * Crea un nuevo usuario.
@@ -63,6 +66,10 @@ public class UserService {
         // Guardar en la base de datos
         User savedUser = userRepository.save(user);
 
+        // Invalidar cualquier dato en caché de este usuario (UserDetails y estado)
+        userCache.removeUserFromCache(savedUser.getUsername());
+        userStatusCache.evict(savedUser.getUsername());
+
         // Convertir a DTO para la respuesta (sin password)
         return toResponseDTO(savedUser);
     }
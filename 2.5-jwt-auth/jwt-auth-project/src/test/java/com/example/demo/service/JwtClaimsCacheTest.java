@@ -0,0 +1,128 @@
+package com.example.demo.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Aciertos, fallos, expiración con el exp del token y tamaño acotado de JwtClaimsCache.
+ */
+class JwtClaimsCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T10:00:00Z"));
+    private final JwtClaimsCache cache = new JwtClaimsCache(100, clock,
+            () -> TimeUnit.MILLISECONDS.toNanos(clock.millis()), registry);
+
+    @Test
+    void verifiedTokenIsServedFromCache() {
+        Claims claims = claims("alice", Duration.ofMinutes(10));
+        cache.put("token-a", claims);
+
+        assertThat(cache.get("token-a")).isSameAs(claims);
+        assertThat(gets("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void unknownTokenIsAMiss() {
+        cache.put("token-a", claims("alice", Duration.ofMinutes(10)));
+
+        assertThat(cache.get("token-b")).isNull();
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void entryExpiresWithTheToken() {
+        cache.put("short", claims("alice", Duration.ofMinutes(1)));
+        cache.put("long", claims("bob", Duration.ofMinutes(10)));
+
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(cache.get("short")).isNotNull();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(cache.get("short")).isNull();
+        assertThat(cache.get("long")).isNotNull();
+    }
+
+    @Test
+    void readingDoesNotExtendTheEntry() {
+        cache.put("token-a", claims("alice", Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 5; i++) {
+            clock.advance(Duration.ofSeconds(10));
+            assertThat(cache.get("token-a")).isNotNull();
+        }
+        clock.advance(Duration.ofSeconds(10));
+
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    void tokenWithoutExpirationIsNotCached() {
+        cache.put("token-a", Jwts.claims().subject("alice").build());
+
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    void sizeIsBounded() {
+        JwtClaimsCache small = new JwtClaimsCache(2, clock,
+                () -> TimeUnit.MILLISECONDS.toNanos(clock.millis()), new SimpleMeterRegistry());
+        for (int i = 0; i < 10; i++) {
+            small.put("token-" + i, claims("user" + i, Duration.ofMinutes(10)));
+        }
+
+        assertThat(small.size()).isEqualTo(2);
+    }
+
+    private Claims claims(String subject, Duration ttl) {
+        return Jwts.claims()
+                .subject(subject)
+                .expiration(Date.from(clock.instant().plus(ttl)))
+                .build();
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", "jwtClaims").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.demo.config;
 
 import com.example.demo.service.JwtService;
+import com.example.demo.service.UserStatusCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -24,6 +28,9 @@ import java.io.IOException;
  * 1. Extrae el token JWT del header Authorization
  * 2. Valida el token
  * 3. Establece la autenticación en el SecurityContext
+ * 
+ * Con jwt.stateless.enabled=true los roles se leen del propio token
+ * en lugar de cargar el usuario desde la base de datos en cada petición.
  */
 @Component
 @RequiredArgsConstructor
@@ -31,6 +38,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+
+    /**
+     * Modo "stateless claims": la identidad y los roles se toman del token
+     * y no se consulta la base de datos en cada petición.
+     */
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean statelessClaims;
 
     @Override
     protected void doFilterInternal(
@@ -51,16 +66,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Extraer el token (remover el prefijo "Bearer ")
         final String jwt = authHeader.substring(7);
         
-        // Extraer el username del token
-        final String username = jwtService.extractUsername(jwt);
+        // Verificar el token y extraer sus claims una única vez
+        final Claims claims = jwtService.extractAllClaims(jwt);
+        final String username = claims.getSubject();
 
         // Si hay username y no hay autenticación en el contexto actual
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // Cargar los detalles del usuario desde la base de datos
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = resolveUserDetails(username, claims);
 
             // Validar el token con los detalles del usuario
-            if (jwtService.validateToken(jwt, userDetails)) {
+            if (userDetails != null && jwtService.validateToken(claims, userDetails)) {
                 // Crear el objeto de autenticación
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -79,4 +94,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Continuar con la cadena de filtros
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Obtiene los detalles del usuario autenticado.
+     * 
+     * - Modo por defecto: se cargan desde la base de datos con UserDetailsService.
+     * - Modo stateless: se construyen con el subject y las authorities del token;
+     *   solo se comprueba (desde una caché en memoria) que el usuario siga activo.
+     * 
+     * @return UserDetails del usuario, o null si el usuario está deshabilitado
+     */
+    private UserDetails resolveUserDetails(String username, Claims claims) {
+        if (!statelessClaims) {
+            // Cargar los detalles del usuario desde la base de datos
+            return this.userDetailsService.loadUserByUsername(username);
+        }
+
+        if (!userStatusCache.isActive(username)) {
+            return null;
+        }
+
+        return User.withUsername(username)
+                .password("") // No hay credenciales: el token ya fue verificado
+                .authorities(jwtService.extractAuthorities(claims))
+                .build();
+    }
 }
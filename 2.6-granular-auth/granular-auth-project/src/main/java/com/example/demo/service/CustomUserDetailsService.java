@@ -2,9 +2,11 @@ package com.example.demo.service;
 
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -20,13 +22,37 @@ import java.util.List;
  * usuarios de la base de datos con el sistema de autenticación.
  */
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final Timer loadTimer;
 
+    public CustomUserDetailsService(UserRepository userRepository, UserCache userCache, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.loadTimer = Timer.builder("user.details.load")
+                .description("Tiempo de carga de usuarios desde la base de datos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Carga un usuario, primero desde la caché y si no está, desde la base de datos.
+     * 
+     * Devolvemos siempre una copia: Spring Security borra la contraseña del principal
+     * después de autenticar (eraseCredentials) y eso no debe afectar a la entrada en caché.
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails userDetails = userCache.getUserFromCache(username);
+        if (userDetails == null) {
+            userDetails = loadTimer.record(() -> loadFromDatabase(username));
+            userCache.putUserInCache(userDetails);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
+    }
+
+    private UserDetails loadFromDatabase(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
 
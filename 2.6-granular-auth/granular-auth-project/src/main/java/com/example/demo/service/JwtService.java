@@ -4,13 +4,19 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -64,6 +70,39 @@ public class JwtService {
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
 
+    /**
+     * Valida claims ya extraídos contra un usuario (evita parsear el token otra vez).
+     */
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date());
+    }
+
+    /**
+     * Extrae los roles (authorities) guardados en el token.
+     * 
+     * generateToken serializa las authorities como objetos {"authority": "ROLE_X"},
+     * así que aceptamos tanto ese formato como una lista de Strings.
+     * 
+     * @param claims Claims verificados del token
+     * @return Lista de GrantedAuthority del usuario
+     */
+    public List<GrantedAuthority> extractAuthorities(Claims claims) {
+        Object raw = claims.get("authorities");
+        if (!(raw instanceof Collection<?> values)) {
+            return Collections.emptyList();
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>(values.size());
+        for (Object value : values) {
+            Object authority = value instanceof Map<?, ?> map ? map.get("authority") : value;
+            if (authority != null) {
+                authorities.add(new SimpleGrantedAuthority(authority.toString()));
+            }
+        }
+        return authorities;
+    }
+
     /**
      * Extrae el username del token.
      */
@@ -94,9 +133,9 @@ public class JwtService {
     }
 
     /**
-     * Extrae todos los claims del token.
+     * Extrae todos los claims del token (verificando la firma).
      */
-    private Claims extractAllClaims(String token) {
+    public Claims extractAllClaims(String token) {
         return Jwts.parser()
                 .verifyWith(getSigningKey())
                 .build()
@@ -0,0 +1,67 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Caché en memoria del estado (existe y está habilitado) de cada usuario.
+ *
+ * Se usa en el modo "stateless claims" del filtro JWT: la identidad y los roles
+ * salen del propio token, pero aun así queremos poder bloquear a un usuario
+ * deshabilitado o eliminado sin esperar a que su token expire.
+ *
+ * En lugar de consultar la base de datos en cada petición, el estado se consulta
+ * como mucho una vez por usuario cada jwt.stateless.user-check-ttl.
+ * Con un TTL de 0 la comprobación se desactiva por completo.
+ *
+ * Caffeine acota la caché a jwt.stateless.user-check-max-size usuarios: al llenarse
+ * expulsa los menos usados en lugar de dejar de cachear. Métricas con cache=userStatus.
+ *
+ * Este proyecto no tiene endpoints que modifiquen usuarios, así que nada invalida
+ * entradas: un usuario deshabilitado directamente en la base de datos se bloquea
+ * como mucho un user-check-ttl después.
+ */
+@Component
+public class UserStatusCache {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final Cache<String, Boolean> entries;
+
+    public UserStatusCache(UserRepository userRepository,
+                           @Value("${jwt.stateless.user-check-ttl:30s}") Duration ttl,
+                           @Value("${jwt.stateless.user-check-max-size:10000}") long maxSize,
+                           MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.enabled = !ttl.isZero() && !ttl.isNegative();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(enabled ? ttl : Duration.ofMillis(1))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "userStatus");
+    }
+
+    /**
+     * Indica si el usuario existe y está habilitado.
+     *
+     * @param username Username (subject del token)
+     * @return true si el usuario puede autenticarse
+     */
+    public boolean isActive(String username) {
+        if (!enabled) {
+            return true;
+        }
+        return entries.get(username, key -> userRepository.findByUsername(key)
+                .map(User::isEnabled)
+                .orElse(false));
+    }
+}
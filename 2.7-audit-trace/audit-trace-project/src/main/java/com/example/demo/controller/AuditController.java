@@ -1,13 +1,18 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.AuditLog;
+import com.example.demo.model.RouteLatency;
 import com.example.demo.service.AuditService;
+import com.example.demo.service.RequestLatencyService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -22,14 +27,38 @@ import java.util.List;
 public class AuditController {
 
     private final AuditService auditService;
+    private final RequestLatencyService latencyService;
 
     /**
-     * Obtener todos los logs de auditoría.
+     * Obtener logs de auditoría, opcionalmente filtrados.
      * 
+     * Ejemplo: GET /api/audit/logs?from=2026-01-27T10:00:00&to=2026-01-27T11:00:00&path=/api/users
+     * 
+     * @param from Inicio del rango de tiempo (ISO-8601, opcional)
+     * @param to Fin del rango de tiempo (ISO-8601, opcional)
+     * @param path Prefijo del path auditado (opcional)
+     * @param limit Máximo de registros a devolver
      * @return Lista de logs de auditoría
      */
     @GetMapping("/logs")
-    public ResponseEntity<List<AuditLog>> getAuditLogs() {
-        return ResponseEntity.ok(auditService.getAllLogs());
+    public ResponseEntity<List<AuditLog>> getAuditLogs(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String path,
+            @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(auditService.findLogs(from, to, path, limit));
+    }
+
+    /**
+     * Obtener percentiles de latencia (p50, p99, p999) por ruta y capa.
+     * 
+     * La capa "filter" es el tiempo total de la petición y "controller"
+     * el tiempo desde preHandle hasta afterCompletion.
+     * 
+     * @return Latencias en milisegundos
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<List<RouteLatency>> getLatencies() {
+        return ResponseEntity.ok(latencyService.getLatencies());
     }
 }
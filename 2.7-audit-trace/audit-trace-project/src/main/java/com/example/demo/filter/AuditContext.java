@@ -0,0 +1,102 @@
+package com.example.demo.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estado de auditoría de una petición, compartido entre AuditFilter y AuditInterceptor.
+ *
+ * El filtro lo abre al empezar la petición y lo guarda como atributo del request;
+ * el interceptor completa los datos del controlador (handler, tiempo, excepción)
+ * y el filtro emite un único AuditLog al terminar. Así cada petición genera un
+ * solo registro, con el tiempo total y el del controlador juntos.
+ *
+ * Es mutable y se reutiliza entre peticiones del mismo hilo (ver AuditFilter),
+ * por lo que no debe guardarse fuera de la petición.
+ */
+public class AuditContext {
+
+    static final String ATTRIBUTE = AuditContext.class.getName();
+
+    private final StringBuilder details = new StringBuilder(128);
+
+    private long startNanos;
+    private LocalDateTime timestamp;
+    private Object handler;
+    private long controllerStartNanos;
+    private long controllerNanos;
+    private Exception exception;
+
+    /**
+     * @return El contexto de la petición, o null si AuditFilter no la procesó
+     */
+    public static AuditContext get(HttpServletRequest request) {
+        return (AuditContext) request.getAttribute(ATTRIBUTE);
+    }
+
+    /**
+     * Reinicia el contexto para una nueva petición.
+     */
+    AuditContext start() {
+        details.setLength(0);
+        startNanos = System.nanoTime();
+        timestamp = LocalDateTime.now();
+        handler = null;
+        controllerStartNanos = 0;
+        controllerNanos = -1;
+        exception = null;
+        return this;
+    }
+
+    public void controllerStarted() {
+        controllerStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Marca el fin del controlador.
+     *
+     * @return Duración del controlador en nanosegundos
+     */
+    public long controllerCompleted(Object handler, Exception exception) {
+        this.controllerNanos = System.nanoTime() - controllerStartNanos;
+        this.handler = handler;
+        this.exception = exception;
+        return controllerNanos;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    StringBuilder details() {
+        return details;
+    }
+
+    /**
+     * Añade a los detalles la parte del controlador (si la petición llegó a uno).
+     */
+    void appendControllerDetails() {
+        if (controllerNanos < 0) {
+            return;
+        }
+        details.append(", Handler: ");
+        if (handler instanceof HandlerMethod handlerMethod) {
+            details.append(handlerMethod.getBeanType().getSimpleName())
+                    .append('#')
+                    .append(handlerMethod.getMethod().getName());
+        } else {
+            details.append(handler);
+        }
+        details.append(", Controller: ").append(TimeUnit.NANOSECONDS.toMillis(controllerNanos)).append(" ms");
+        if (exception != null) {
+            details.append(", Exception: ").append(exception.getClass().getSimpleName());
+        }
+    }
+}
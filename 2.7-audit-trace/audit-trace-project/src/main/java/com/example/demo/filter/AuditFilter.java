@@ -1,13 +1,18 @@
 package com.example.demo.filter;
 
+import com.example.demo.filter.capture.BodyCapture;
+import com.example.demo.filter.capture.CaptureMode;
+import com.example.demo.filter.capture.CapturingRequestWrapper;
+import com.example.demo.filter.capture.CapturingResponseWrapper;
 import com.example.demo.model.AuditLog;
 import com.example.demo.service.AuditService;
+import com.example.demo.service.RequestLatencyService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -15,7 +20,7 @@ import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filtro HTTP para auditoría de requests y responses.
@@ -23,19 +28,42 @@ import java.time.LocalDateTime;
  * Este filtro:
  * 1. Intercepta todas las peticiones HTTP
  * 2. Registra información de la petición (método, path, usuario, etc.)
- * 3. Mide el tiempo de ejecución
+ * 3. Mide el tiempo de ejecución (System.nanoTime, registrado en RequestLatencyService)
  * 4. Registra la respuesta (status code)
  * 5. Envía la información al servicio de auditoría
  * 
+ * Se emite un solo registro por petición: AuditInterceptor no registra nada por su cuenta,
+ * solo completa el AuditContext de la petición (handler, tiempo del controlador) y
+ * este filtro lo incluye en el registro final.
+ * 
+ * Con audit.capture.mode=STREAMING (por defecto) los bodies no se guardan en memoria:
+ * se cuentan los bytes a medida que pasan y, si audit.capture.body-prefix-bytes > 0,
+ * se conserva un prefijo acotado. Con CACHING se usan los ContentCaching*Wrapper de Spring
+ * y el prefijo se toma del body ya guardado en memoria.
+ * 
  * @Order(1) asegura que este filtro se ejecute antes que otros filtros
  */
 @Component
 @Order(1)
-@RequiredArgsConstructor
 @Slf4j
 public class AuditFilter extends OncePerRequestFilter {
 
+    private static final ThreadLocal<AuditContext> CONTEXTS = ThreadLocal.withInitial(AuditContext::new);
+
     private final AuditService auditService;
+    private final RequestLatencyService latencyService;
+    private final CaptureMode captureMode;
+    private final int bodyPrefixBytes;
+
+    public AuditFilter(AuditService auditService,
+                       RequestLatencyService latencyService,
+                       @Value("${audit.capture.mode:STREAMING}") CaptureMode captureMode,
+                       @Value("${audit.capture.body-prefix-bytes:0}") int bodyPrefixBytes) {
+        this.auditService = auditService;
+        this.latencyService = latencyService;
+        this.captureMode = captureMode;
+        this.bodyPrefixBytes = bodyPrefixBytes;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -43,10 +71,60 @@ public class AuditFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain
     ) throws ServletException, IOException {
-        
-        // Registrar tiempo de inicio
-        long startTime = System.currentTimeMillis();
-        LocalDateTime timestamp = LocalDateTime.now();
+        // Contexto compartido con AuditInterceptor (reutilizado por hilo)
+        AuditContext context = CONTEXTS.get().start();
+        request.setAttribute(AuditContext.ATTRIBUTE, context);
+
+        try {
+            if (captureMode == CaptureMode.CACHING) {
+                doFilterCaching(request, response, filterChain, context);
+            } else {
+                doFilterStreaming(request, response, filterChain, context);
+            }
+        } finally {
+            request.removeAttribute(AuditContext.ATTRIBUTE);
+        }
+    }
+
+    private void doFilterStreaming(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain,
+            AuditContext context
+    ) throws ServletException, IOException {
+
+        // Wrappers que solo cuentan bytes (y un prefijo acotado) mientras el body pasa
+        CapturingRequestWrapper wrappedRequest = new CapturingRequestWrapper(request, bodyPrefixBytes);
+        CapturingResponseWrapper wrappedResponse = new CapturingResponseWrapper(response, bodyPrefixBytes);
+
+        try {
+            // Continuar con la cadena de filtros
+            filterChain.doFilter(wrappedRequest, wrappedResponse);
+        } finally {
+            // Volcar lo que quede en el writer antes de medir. Si falla (p. ej. el cliente
+            // ya cerró la conexión) el registro se emite igual y no se tapa la excepción de la cadena
+            try {
+                wrappedResponse.flush();
+            } catch (RuntimeException e) {
+                log.debug("No se pudo volcar la respuesta de {}: {}", request.getRequestURI(), e.getMessage());
+            }
+            long duration = elapsed(request, context);
+
+            appendStatus(context.details(), wrappedResponse.getStatus(),
+                    wrappedRequest.getCapture().getByteCount(), wrappedResponse.getCapture().getByteCount());
+            appendPrefix(context.details(), "Request body", wrappedRequest.getCapture());
+            appendPrefix(context.details(), "Response body", wrappedResponse.getCapture());
+
+            auditService.log(createAuditLog(request, context, duration));
+        }
+    }
+
+    private void doFilterCaching(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain,
+            AuditContext context
+    ) throws ServletException, IOException {
 
         // Wrappers para poder leer el body de request/response múltiples veces
         ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
@@ -57,33 +135,64 @@ public class AuditFilter extends OncePerRequestFilter {
             filterChain.doFilter(wrappedRequest, wrappedResponse);
         } finally {
             // Calcular duración
-            long duration = System.currentTimeMillis() - startTime;
-
-            // Obtener información de la petición
-            String method = request.getMethod();
-            String path = request.getRequestURI();
-            String user = getUserFromRequest(request); // Podría venir de JWT, sesión, etc.
-            int statusCode = wrappedResponse.getStatus();
-
-            // Crear log de auditoría
-            AuditLog auditLog = new AuditLog(
-                    timestamp,
-                    method,
-                    path,
-                    user,
-                    "HTTP_REQUEST",
-                    String.format("Status: %d", statusCode),
-                    duration
-            );
+            long duration = elapsed(request, context);
+            byte[] requestBody = wrappedRequest.getContentAsByteArray();
+            appendStatus(context.details(), wrappedResponse.getStatus(),
+                    requestBody.length, wrappedResponse.getContentSize());
+            appendPrefix(context.details(), "Request body", BodyCapture.of(requestBody, bodyPrefixBytes));
+            appendPrefix(context.details(), "Response body",
+                    BodyCapture.of(wrappedResponse.getContentAsByteArray(), bodyPrefixBytes));
 
             // Registrar en el servicio de auditoría
-            auditService.log(auditLog);
+            auditService.log(createAuditLog(request, context, duration));
 
             // Copiar el body de la respuesta (necesario cuando usamos ContentCachingResponseWrapper)
             wrappedResponse.copyBodyToResponse();
         }
     }
 
+    /**
+     * Registra la duración en el histograma de la ruta y la devuelve en milisegundos.
+     */
+    private long elapsed(HttpServletRequest request, AuditContext context) {
+        long nanos = context.elapsedNanos();
+        latencyService.record(request, RequestLatencyService.LAYER_FILTER, nanos);
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Crea el único registro de la petición, con los datos del filtro
+     * y los que haya añadido AuditInterceptor.
+     */
+    private AuditLog createAuditLog(HttpServletRequest request, AuditContext context, long duration) {
+        context.appendControllerDetails();
+        return new AuditLog(
+                context.getTimestamp(),
+                request.getMethod(),
+                request.getRequestURI(),
+                getUserFromRequest(request), // Podría venir de JWT, sesión, etc.
+                "HTTP_REQUEST",
+                context.details().toString(),
+                duration
+        );
+    }
+
+    private void appendStatus(StringBuilder details, int status, long requestBytes, long responseBytes) {
+        details.append("Status: ").append(status)
+                .append(", Request: ").append(requestBytes).append(" B")
+                .append(", Response: ").append(responseBytes).append(" B");
+    }
+
+    private void appendPrefix(StringBuilder details, String label, BodyCapture capture) {
+        if (bodyPrefixBytes <= 0 || capture.getByteCount() == 0) {
+            return;
+        }
+        details.append(", ").append(label).append(": ").append(capture.getPrefix());
+        if (capture.isTruncated()) {
+            details.append("...");
+        }
+    }
+
     /**
      * Extrae el usuario de la petición.
      * 
@@ -0,0 +1,64 @@
+package com.example.demo.filter.capture;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cuenta los bytes de un body y conserva solo sus primeros N bytes.
+ *
+ * La memoria usada es constante (como mucho el tamaño del prefijo),
+ * sin importar el tamaño real del body.
+ */
+public class BodyCapture {
+
+    private final byte[] prefix;
+    private int prefixLength;
+    private long byteCount;
+
+    public BodyCapture(int maxPrefixBytes) {
+        this.prefix = new byte[Math.max(0, maxPrefixBytes)];
+    }
+
+    /**
+     * Captura de un body que ya está entero en memoria (modo CACHING).
+     */
+    public static BodyCapture of(byte[] body, int maxPrefixBytes) {
+        BodyCapture capture = new BodyCapture(maxPrefixBytes);
+        capture.record(body, 0, body.length);
+        return capture;
+    }
+
+    void record(int b) {
+        if (prefixLength < prefix.length) {
+            prefix[prefixLength++] = (byte) b;
+        }
+        byteCount++;
+    }
+
+    void record(byte[] b, int off, int len) {
+        int copy = Math.min(len, prefix.length - prefixLength);
+        if (copy > 0) {
+            System.arraycopy(b, off, prefix, prefixLength, copy);
+            prefixLength += copy;
+        }
+        byteCount += len;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * @return true si el body no cabía entero en el prefijo
+     */
+    public boolean isTruncated() {
+        return byteCount > prefixLength;
+    }
+
+    /**
+     * @return Prefijo del body como texto UTF-8 (vacío si no se captura prefijo)
+     */
+    public String getPrefix() {
+        return new String(Arrays.copyOf(prefix, prefixLength), StandardCharsets.UTF_8);
+    }
+}
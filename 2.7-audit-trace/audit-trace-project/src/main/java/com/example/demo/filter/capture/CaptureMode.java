@@ -0,0 +1,19 @@
+package com.example.demo.filter.capture;
+
+/**
+ * Cómo captura AuditFilter los bodies de petición y respuesta.
+ */
+public enum CaptureMode {
+
+    /**
+     * Cuenta bytes al vuelo y conserva como mucho un prefijo acotado.
+     * Memoria constante por petición.
+     */
+    STREAMING,
+
+    /**
+     * ContentCachingRequestWrapper/ContentCachingResponseWrapper: guarda el body
+     * completo en memoria y lo copia a la respuesta al final.
+     */
+    CACHING
+}
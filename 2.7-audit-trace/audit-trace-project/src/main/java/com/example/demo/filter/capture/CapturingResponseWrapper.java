@@ -0,0 +1,127 @@
+package com.example.demo.filter.capture;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * Wrapper de la respuesta que cuenta los bytes escritos mientras se envían
+ * directamente al cliente.
+ *
+ * A diferencia de ContentCachingResponseWrapper, el body no se acumula en memoria
+ * ni hace falta copiarlo al final (copyBodyToResponse): una descarga grande
+ * fluye sin copias extra y con memoria constante por petición.
+ */
+public class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final BodyCapture capture;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public CapturingResponseWrapper(HttpServletResponse response, int maxPrefixBytes) {
+        super(response);
+        this.capture = new BodyCapture(maxPrefixBytes);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() ya fue llamado en esta respuesta");
+        }
+        return outputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() ya fue llamado en esta respuesta");
+            }
+            Charset charset = Charset.forName(getCharacterEncoding());
+            writer = new PrintWriter(new OutputStreamWriter(outputStream(), charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * Vuelca al cliente lo que quede en el writer (si la aplicación lo usó).
+     *
+     * @throws UncheckedIOException si no se pudo escribir (p. ej. el cliente se desconectó);
+     *                              PrintWriter por sí solo se traga ese error
+     */
+    public void flush() {
+        if (writer != null) {
+            writer.flush();
+            if (writer.checkError()) {
+                throw new UncheckedIOException(new IOException("No se pudo volcar la respuesta al cliente"));
+            }
+        }
+    }
+
+    public BodyCapture getCapture() {
+        return capture;
+    }
+
+    private ServletOutputStream outputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CapturingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    private class CapturingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        CapturingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture.record(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture.record(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
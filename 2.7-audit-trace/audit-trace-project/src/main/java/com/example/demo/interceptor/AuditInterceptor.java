@@ -1,7 +1,7 @@
 package com.example.demo.interceptor;
 
-import com.example.demo.model.AuditLog;
-import com.example.demo.service.AuditService;
+import com.example.demo.filter.AuditContext;
+import com.example.demo.service.RequestLatencyService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,8 +9,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
-import java.time.LocalDateTime;
-
 /**
  * Interceptor para auditoría de métodos del controlador.
  * 
@@ -20,15 +18,18 @@ import java.time.LocalDateTime;
  * - afterCompletion: Después de completar la petición (incluso si hay excepciones)
  * 
  * Este interceptor registra información sobre qué métodos del controlador
- * se están ejecutando y cuánto tiempo toman.
+ * se están ejecutando y cuánto tiempo toman. El tiempo se mide con System.nanoTime()
+ * y se registra en el histograma de la ruta (capa "controller").
+ * 
+ * No crea un AuditLog propio: completa el AuditContext abierto por AuditFilter,
+ * que emite un único registro por petición.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class AuditInterceptor implements HandlerInterceptor {
 
-    private final AuditService auditService;
-    private static final String START_TIME_ATTRIBUTE = "startTime";
+    private final RequestLatencyService latencyService;
 
     /**
      * Se ejecuta ANTES de que se llame al método del controlador.
@@ -42,10 +43,12 @@ public class AuditInterceptor implements HandlerInterceptor {
     public boolean preHandle(HttpServletRequest request, 
                            jakarta.servlet.http.HttpServletResponse response, 
                            Object handler) throws Exception {
-        // Guardar tiempo de inicio en un atributo de la petición
-        long startTime = System.currentTimeMillis();
-        request.setAttribute(START_TIME_ATTRIBUTE, startTime);
-        
+        // Guardar tiempo de inicio en el contexto de auditoría de la petición
+        AuditContext context = AuditContext.get(request);
+        if (context != null) {
+            context.controllerStarted();
+        }
+
         log.debug("Interceptor: preHandle - Método del controlador a ejecutar");
         return true; // Continuar con la ejecución
     }
@@ -70,7 +73,7 @@ public class AuditInterceptor implements HandlerInterceptor {
     /**
      * Se ejecuta DESPUÉS de completar la petición (incluso si hay excepciones).
      * 
-     * Aquí es donde registramos la auditoría porque sabemos que la petición
+     * Aquí completamos la auditoría del controlador porque sabemos que la petición
      * terminó completamente.
      * 
      * @param request La petición HTTP
@@ -83,49 +86,15 @@ public class AuditInterceptor implements HandlerInterceptor {
                                jakarta.servlet.http.HttpServletResponse response, 
                                Object handler, 
                                Exception ex) throws Exception {
-        // Obtener tiempo de inicio guardado en preHandle
-        Long startTime = (Long) request.getAttribute(START_TIME_ATTRIBUTE);
-        if (startTime == null) {
+        AuditContext context = AuditContext.get(request);
+        if (context == null) {
             return;
         }
 
-        // Calcular duración
-        long duration = System.currentTimeMillis() - startTime;
-
-        // Obtener información
-        String method = request.getMethod();
-        String path = request.getRequestURI();
-        String handlerName = handler.toString();
-        String user = getUserFromRequest(request);
-        String action = "CONTROLLER_METHOD";
-        String details = String.format("Handler: %s, Status: %d", handlerName, response.getStatus());
-        
-        if (ex != null) {
-            details += ", Exception: " + ex.getClass().getSimpleName();
-        }
-
-        // Crear log de auditoría
-        AuditLog auditLog = new AuditLog(
-                LocalDateTime.now(),
-                method,
-                path,
-                user,
-                action,
-                details,
-                duration
-        );
-
-        // Registrar en el servicio de auditoría
-        auditService.log(auditLog);
+        // Calcular duración y completar el registro que emitirá AuditFilter
+        long nanos = context.controllerCompleted(handler, ex);
+        latencyService.record(request, RequestLatencyService.LAYER_CONTROLLER, nanos);
         
         log.debug("Interceptor: afterCompletion - Auditoría registrada");
     }
-
-    /**
-     * Extrae el usuario de la petición (similar al filtro).
-     */
-    private String getUserFromRequest(HttpServletRequest request) {
-        String user = request.getHeader("X-User");
-        return (user != null && !user.isEmpty()) ? user : "anonymous";
-    }
 }
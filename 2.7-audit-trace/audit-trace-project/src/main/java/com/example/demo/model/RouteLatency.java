@@ -0,0 +1,24 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resumen de latencias de una ruta en una capa (filtro o controlador).
+ *
+ * Los percentiles se calculan sobre una ventana deslizante reciente,
+ * no sobre todo el histórico. Todos los tiempos están en milisegundos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteLatency {
+    private String route;
+    private String layer; // filter o controller
+    private long count;
+    private double p50;
+    private double p99;
+    private double p999;
+    private double max;
+}
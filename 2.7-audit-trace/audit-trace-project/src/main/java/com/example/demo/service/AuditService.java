@@ -1,60 +1,225 @@
 package com.example.demo.service;
 
 import com.example.demo.model.AuditLog;
+import com.example.demo.service.audit.AuditSink;
+import com.example.demo.service.audit.BackpressurePolicy;
+import com.example.demo.service.audit.InMemoryAuditSink;
+import com.example.demo.service.audit.MappedFileAuditSink;
+import com.example.demo.service.audit.MpscRingBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
 
 /**
- * Servicio simple de auditoría.
- * 
- * En un proyecto real, esto podría guardar los logs en:
- * - Base de datos
- * - Sistema de logging centralizado (ELK, Splunk, etc.)
- * - Archivos de log
- * 
- * Para este ejemplo, solo los guarda en memoria y los imprime en consola.
+ * Servicio de auditoría asíncrono.
+ *
+ * Los hilos de las peticiones solo encolan el registro en una cola sin bloqueos
+ * (MpscRingBuffer). Un hilo de fondo drena la cola por lotes y entrega cada lote
+ * a todos los AuditSink registrados (memoria, consola, etc.).
+ *
+ * Así el coste de auditar en el hilo de la petición es mínimo y no hay
+ * condiciones de carrera sobre una lista compartida.
+ *
+ * Si la cola se llena se aplica la política configurada en audit.pipeline.backpressure
+ * (DROP, BLOCK o SAMPLE). La profundidad de la cola y los registros descartados
+ * se publican como métricas (audit.queue.depth, audit.dropped, audit.sampled).
  */
 @Service
 @Slf4j
 public class AuditService {
 
-    // En memoria para este ejemplo simple
-    // En producción, usar base de datos o sistema de logging
-    private final List<AuditLog> auditLogs = new ArrayList<>();
+    private final MpscRingBuffer<AuditLog> queue;
+    private final List<AuditSink> sinks;
+    private final InMemoryAuditSink memorySink;
+    private final Optional<MappedFileAuditSink> fileStore;
+    private final BackpressurePolicy backpressure;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int sampleRate;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    public AuditService(List<AuditSink> sinks,
+                        InMemoryAuditSink memorySink,
+                        Optional<MappedFileAuditSink> fileStore,
+                        MeterRegistry meterRegistry,
+                        @Value("${audit.pipeline.capacity:8192}") int capacity,
+                        @Value("${audit.pipeline.batch-size:256}") int batchSize,
+                        @Value("${audit.pipeline.flush-interval:100ms}") Duration flushInterval,
+                        @Value("${audit.pipeline.backpressure:DROP}") BackpressurePolicy backpressure,
+                        @Value("${audit.pipeline.sample-rate:10}") int sampleRate) {
+        this.queue = new MpscRingBuffer<>(capacity);
+        this.sinks = sinks;
+        this.memorySink = memorySink;
+        this.fileStore = fileStore;
+        this.backpressure = backpressure;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.sampleRate = Math.max(1, sampleRate);
+
+        Gauge.builder("audit.queue.depth", queue, MpscRingBuffer::size)
+                .description("Registros de auditoría pendientes de drenar")
+                .register(meterRegistry);
+        FunctionCounter.builder("audit.dropped", dropped, AtomicLong::get)
+                .description("Registros de auditoría descartados por cola llena")
+                .register(meterRegistry);
+        FunctionCounter.builder("audit.sampled", sampled, AtomicLong::get)
+                .description("Registros de auditoría omitidos por muestreo")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "audit-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Detiene el drenador entregando antes los registros pendientes.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(5));
+    }
 
     /**
      * Registra un evento de auditoría.
-     * 
+     *
+     * No bloquea (salvo con la política BLOCK y la cola llena): el registro
+     * se escribe en los sinks de forma asíncrona.
+     *
      * @param auditLog El log de auditoría a registrar
      */
     public void log(AuditLog auditLog) {
-        auditLogs.add(auditLog);
-        
-        // Imprimir en consola (en producción, usar logger apropiado)
-        log.info("AUDIT: {} {} {} - {} - {}ms", 
-                auditLog.getTimestamp(),
-                auditLog.getMethod(),
-                auditLog.getPath(),
-                auditLog.getAction(),
-                auditLog.getDuration());
+        switch (backpressure) {
+            case BLOCK -> offerBlocking(auditLog);
+            case SAMPLE -> offerSampled(auditLog);
+            default -> offerOrDrop(auditLog);
+        }
+
+        // Si ya hay un lote completo, despertar al drenador sin esperar al intervalo
+        if (queue.size() >= batchSize) {
+            LockSupport.unpark(drainer);
+        }
     }
 
     /**
-     * Obtiene todos los logs de auditoría.
-     * 
+     * Obtiene los logs de auditoría conservados en memoria.
+     *
      * @return Lista de logs de auditoría
      */
     public List<AuditLog> getAllLogs() {
-        return new ArrayList<>(auditLogs);
+        return memorySink.getAll();
+    }
+
+    /**
+     * Busca logs de auditoría por rango de tiempo y prefijo de path.
+     * 
+     * Si el almacén en ficheros está activo (audit.store.enabled) la consulta
+     * se resuelve sobre él, incluyendo registros de ejecuciones anteriores.
+     * Si no, se filtran los registros en memoria.
+     *
+     * @param from Inicio del rango (inclusive), o null
+     * @param to Fin del rango (inclusive), o null
+     * @param pathPrefix Prefijo del path, o null
+     * @param limit Máximo de registros a devolver
+     * @return Logs que cumplen los filtros, del más antiguo al más reciente
+     */
+    public List<AuditLog> findLogs(LocalDateTime from, LocalDateTime to, String pathPrefix, int limit) {
+        Stream<AuditLog> logs = fileStore
+                .map(store -> store.query(from, to, pathPrefix))
+                .orElseGet(() -> memorySink.getAll().stream()
+                        .filter(auditLog -> matches(auditLog, from, to, pathPrefix)));
+
+        try (logs) {
+            return logs.limit(limit).toList();
+        }
     }
 
     /**
      * Limpia los logs (útil para testing).
      */
     public void clearLogs() {
-        auditLogs.clear();
+        memorySink.clear();
+    }
+
+    private static boolean matches(AuditLog auditLog, LocalDateTime from, LocalDateTime to, String pathPrefix) {
+        LocalDateTime timestamp = auditLog.getTimestamp();
+        return (from == null || !timestamp.isBefore(from))
+                && (to == null || !timestamp.isAfter(to))
+                && (pathPrefix == null || auditLog.getPath().startsWith(pathPrefix));
+    }
+
+    private void offerOrDrop(AuditLog auditLog) {
+        if (!queue.offer(auditLog)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void offerBlocking(AuditLog auditLog) {
+        while (!queue.offer(auditLog)) {
+            if (!running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(drainer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    private void offerSampled(AuditLog auditLog) {
+        boolean underPressure = queue.size() >= queue.capacity() / 2;
+        if (underPressure && sampleCounter.incrementAndGet() % sampleRate != 0) {
+            sampled.incrementAndGet();
+            return;
+        }
+        offerOrDrop(auditLog);
+    }
+
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || queue.size() > 0) {
+            if (queue.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            publish(batch);
+            batch.clear();
+        }
+    }
+
+    private void publish(List<AuditLog> batch) {
+        for (AuditSink sink : sinks) {
+            try {
+                sink.write(batch);
+            } catch (RuntimeException e) {
+                // Un sink con errores no debe detener la auditoría del resto
+                log.warn("Error escribiendo auditoría en {}: {}", sink.getClass().getSimpleName(), e.getMessage());
+            }
+        }
     }
 }
@@ -0,0 +1,104 @@
+package com.example.demo.service;
+
+import com.example.demo.model.RouteLatency;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histogramas de latencia por ruta y por capa.
+ *
+ * AuditFilter registra el tiempo total de la petición (capa "filter") y
+ * AuditInterceptor el tiempo de preHandle a afterCompletion (capa "controller"),
+ * ambos medidos con System.nanoTime().
+ *
+ * Cada combinación ruta/capa es un Timer de Micrometer (audit.request.latency)
+ * con percentiles p50, p99 y p999 calculados en la propia aplicación, así que
+ * se pueden ver en /actuator/metrics y en /api/audit/latency sin recorrer los logs.
+ *
+ * La ruta es el patrón del controlador (/api/users/{id}) y no la URI,
+ * para que el número de histogramas no crezca con cada id distinto.
+ */
+@Service
+public class RequestLatencyService {
+
+    public static final String LAYER_FILTER = "filter";
+    public static final String LAYER_CONTROLLER = "controller";
+
+    private static final String METRIC_NAME = "audit.request.latency";
+    private static final String UNMAPPED_ROUTE = "UNMAPPED";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<RouteKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public RequestLatencyService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Registra la duración de una petición.
+     *
+     * @param request La petición HTTP (para resolver la ruta)
+     * @param layer LAYER_FILTER o LAYER_CONTROLLER
+     * @param nanos Duración en nanosegundos
+     */
+    public void record(HttpServletRequest request, String layer, long nanos) {
+        timers.computeIfAbsent(new RouteKey(resolveRoute(request), layer), this::createTimer)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return Latencias actuales de todas las rutas, ordenadas por ruta y capa
+     */
+    public List<RouteLatency> getLatencies() {
+        return timers.entrySet().stream()
+                .map(entry -> toRouteLatency(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(RouteLatency::getRoute).thenComparing(RouteLatency::getLayer))
+                .toList();
+    }
+
+    private Timer createTimer(RouteKey key) {
+        return Timer.builder(METRIC_NAME)
+                .description("Latencia de las peticiones por ruta y capa")
+                .tag("route", key.route())
+                .tag("layer", key.layer())
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .percentilePrecision(3)
+                .register(meterRegistry);
+    }
+
+    private RouteLatency toRouteLatency(RouteKey key, Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        double p50 = 0, p99 = 0, p999 = 0;
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            double millis = value.value(TimeUnit.MILLISECONDS);
+            if (value.percentile() == 0.5) {
+                p50 = millis;
+            } else if (value.percentile() == 0.99) {
+                p99 = millis;
+            } else if (value.percentile() == 0.999) {
+                p999 = millis;
+            }
+        }
+        return new RouteLatency(key.route(), key.layer(), snapshot.count(), p50, p99, p999,
+                snapshot.max(TimeUnit.MILLISECONDS));
+    }
+
+    private String resolveRoute(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNMAPPED_ROUTE;
+    }
+
+    private record RouteKey(String route, String layer) {
+    }
+}
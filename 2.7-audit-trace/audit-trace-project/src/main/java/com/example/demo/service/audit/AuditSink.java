@@ -0,0 +1,24 @@
+package com.example.demo.service.audit;
+
+import com.example.demo.model.AuditLog;
+
+import java.util.List;
+
+/**
+ * Destino de los registros de auditoría (memoria, consola, base de datos, fichero...).
+ *
+ * El drenador de AuditService entrega los registros por lotes, siempre desde
+ * el mismo hilo de fondo, nunca desde los hilos de las peticiones.
+ */
+public interface AuditSink {
+
+    /**
+     * Escribe un lote de registros.
+     *
+     * La lista se reutiliza entre lotes: si la implementación necesita
+     * conservar los registros, debe copiarlos.
+     *
+     * @param batch Lote de registros de auditoría
+     */
+    void write(List<AuditLog> batch);
+}
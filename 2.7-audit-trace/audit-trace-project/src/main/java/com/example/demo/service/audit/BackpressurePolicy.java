@@ -0,0 +1,24 @@
+package com.example.demo.service.audit;
+
+/**
+ * Qué hacer cuando la cola de auditoría no da abasto.
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Si la cola está llena, el registro se descarta (el hilo de la petición nunca espera).
+     */
+    DROP,
+
+    /**
+     * Si la cola está llena, el hilo de la petición espera hasta que haya hueco.
+     * Garantiza que no se pierden registros a costa de latencia.
+     */
+    BLOCK,
+
+    /**
+     * Cuando la cola supera la mitad de su capacidad, solo se encola 1 de cada N registros.
+     * Si aun así se llena, se descarta.
+     */
+    SAMPLE
+}
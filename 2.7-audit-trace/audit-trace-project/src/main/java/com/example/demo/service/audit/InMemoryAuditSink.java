@@ -0,0 +1,49 @@
+package com.example.demo.service.audit;
+
+import com.example.demo.model.AuditLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Sink que conserva en memoria los últimos registros de auditoría
+ * para poder consultarlos desde AuditController.
+ *
+ * Está acotado por audit.memory.max-entries: al superarlo se descartan
+ * los registros más antiguos, así el heap no crece sin límite.
+ */
+@Component
+public class InMemoryAuditSink implements AuditSink {
+
+    private final Deque<AuditLog> logs = new ArrayDeque<>();
+    private final int maxEntries;
+
+    public InMemoryAuditSink(@Value("${audit.memory.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public synchronized void write(List<AuditLog> batch) {
+        for (AuditLog auditLog : batch) {
+            if (logs.size() >= maxEntries) {
+                logs.pollFirst();
+            }
+            logs.addLast(auditLog);
+        }
+    }
+
+    /**
+     * @return Copia de los registros en memoria, del más antiguo al más reciente
+     */
+    public synchronized List<AuditLog> getAll() {
+        return new ArrayList<>(logs);
+    }
+
+    public synchronized void clear() {
+        logs.clear();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.service.audit;
+
+import com.example.demo.model.AuditLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Sink que imprime cada registro de auditoría en el log de la aplicación.
+ */
+@Component
+@Slf4j
+public class LoggingAuditSink implements AuditSink {
+
+    @Override
+    public void write(List<AuditLog> batch) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (AuditLog auditLog : batch) {
+            log.info("AUDIT: {} {} {} - {} - {}ms",
+                    auditLog.getTimestamp(),
+                    auditLog.getMethod(),
+                    auditLog.getPath(),
+                    auditLog.getAction(),
+                    auditLog.getDuration());
+        }
+    }
+}
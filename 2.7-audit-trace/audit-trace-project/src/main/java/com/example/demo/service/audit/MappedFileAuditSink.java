@@ -0,0 +1,430 @@
+package com.example.demo.service.audit;
+
+import com.example.demo.model.AuditLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Almacén persistente de auditoría en ficheros mapeados en memoria (append-only).
+ *
+ * Los registros se escriben en segmentos de tamaño fijo (audit.store.segment-size).
+ * Cuando un segmento se llena se abre el siguiente, y los segmentos más antiguos
+ * se borran según audit.store.max-segments y audit.store.retention. La retención se
+ * comprueba al abrir un segmento y cada audit.store.retention-check-interval, así que
+ * un almacén sin tráfico también borra lo caducado.
+ *
+ * Está desactivado por defecto (audit.store.enabled). audit.store.directory debe ser
+ * un directorio con permisos de escritura; en Docker es un volumen en /app/data/audit.
+ *
+ * Formato de cada registro (binario compacto):
+ * <pre>
+ * int    longitud del resto del registro (0 = fin de datos del segmento)
+ * long   timestamp (epoch millis; los LocalDateTime se convierten con la zona del sistema)
+ * long   duración (-1 si es null)
+ * String method, path, user, action, details  (int longitud + bytes UTF-8; -1 si es null)
+ * </pre>
+ *
+ * Las consultas recorren solo los segmentos cuyo rango de tiempo solapa con el pedido
+ * y decodifican los registros bajo demanda, así que su coste es proporcional al
+ * resultado y no a todo el histórico.
+ *
+ * Solo el hilo drenador de AuditService escribe; las lecturas pueden venir de cualquier hilo.
+ */
+@Component
+@ConditionalOnProperty(name = "audit.store.enabled", havingValue = "true")
+@Slf4j
+public class MappedFileAuditSink implements AuditSink {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int FIXED_FIELDS_SIZE = Long.BYTES * 2;
+    private static final int NULL_LENGTH = -1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final Duration retention;
+    private final Duration retentionCheckInterval;
+    private final Clock clock;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService retentionScheduler;
+
+    @Autowired
+    public MappedFileAuditSink(@Value("${audit.store.directory:data/audit}") String directory,
+                               @Value("${audit.store.segment-size:16MB}") DataSize segmentSize,
+                               @Value("${audit.store.max-segments:16}") int maxSegments,
+                               @Value("${audit.store.retention:7d}") Duration retention,
+                               @Value("${audit.store.retention-check-interval:1m}") Duration retentionCheckInterval) {
+        this(Paths.get(directory), segmentSize, maxSegments, retention, retentionCheckInterval, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock Reloj para la retención; su zona convierte los LocalDateTime de AuditLog a epoch millis
+     */
+    MappedFileAuditSink(Path directory, DataSize segmentSize, int maxSegments, Duration retention,
+                        Duration retentionCheckInterval, Clock clock) {
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.maxSegments = maxSegments;
+        this.retention = retention;
+        this.retentionCheckInterval = retentionCheckInterval;
+        this.clock = clock;
+    }
+
+    /**
+     * Abre los segmentos existentes (los registros sobreviven a un reinicio)
+     * o crea el primero si el directorio está vacío.
+     */
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> existing = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+            for (Path path : existing) {
+                segments.add(Segment.open(path, sequenceOf(path), segmentSize));
+            }
+        }
+
+        if (segments.isEmpty()) {
+            roll();
+        }
+        applyRetention();
+
+        if (retentionCheckInterval.toMillis() > 0) {
+            retentionScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "audit-retention");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = retentionCheckInterval.toMillis();
+            retentionScheduler.scheduleWithFixedDelay(this::applyRetention, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        log.info("Almacén de auditoría abierto en {} ({} segmentos)", directory.toAbsolutePath(), segments.size());
+    }
+
+    @PreDestroy
+    void close() {
+        if (retentionScheduler != null) {
+            retentionScheduler.shutdownNow();
+        }
+        current().buffer.force();
+    }
+
+    @Override
+    public void write(List<AuditLog> batch) {
+        for (AuditLog auditLog : batch) {
+            try {
+                append(auditLog);
+            } catch (IOException e) {
+                log.warn("No se pudo escribir el registro de auditoría: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Consulta los registros por rango de tiempo y prefijo de path.
+     *
+     * El Stream es perezoso: solo decodifica los registros que se consumen.
+     *
+     * @param from Inicio del rango (inclusive), o null para no limitar
+     * @param to Fin del rango (inclusive), o null para no limitar
+     * @param pathPrefix Prefijo de path, o null para todos
+     * @return Registros que cumplen los filtros, del más antiguo al más reciente
+     */
+    public Stream<AuditLog> query(LocalDateTime from, LocalDateTime to, String pathPrefix) {
+        long fromMillis = from != null ? toMillis(from) : Long.MIN_VALUE;
+        long toMillis = to != null ? toMillis(to) : Long.MAX_VALUE;
+        byte[] prefix = pathPrefix != null ? pathPrefix.getBytes(StandardCharsets.UTF_8) : null;
+
+        return segments.stream()
+                .filter(segment -> segment.overlaps(fromMillis, toMillis))
+                .flatMap(segment -> segment.scan(fromMillis, toMillis, prefix, clock.getZone()));
+    }
+
+    private void append(AuditLog auditLog) throws IOException {
+        byte[] method = bytes(auditLog.getMethod());
+        byte[] path = bytes(auditLog.getPath());
+        byte[] user = bytes(auditLog.getUser());
+        byte[] action = bytes(auditLog.getAction());
+        byte[] details = bytes(auditLog.getDetails());
+
+        int length = FIXED_FIELDS_SIZE
+                + sizeOf(method) + sizeOf(path) + sizeOf(user) + sizeOf(action) + sizeOf(details);
+        int recordSize = Integer.BYTES + length;
+        if (recordSize > segmentSize) {
+            log.warn("Registro de auditoría de {} bytes descartado: no cabe en un segmento", recordSize);
+            return;
+        }
+
+        Segment segment = current();
+        if (segment.remaining() < recordSize) {
+            segment = roll();
+        }
+
+        long timestamp = auditLog.getTimestamp() != null ? toMillis(auditLog.getTimestamp()) : clock.millis();
+        ByteBuffer buffer = segment.buffer;
+        int position = segment.committed;
+        buffer.position(position);
+        buffer.putInt(length);
+        buffer.putLong(timestamp);
+        buffer.putLong(auditLog.getDuration() != null ? auditLog.getDuration() : -1L);
+        put(buffer, method);
+        put(buffer, path);
+        put(buffer, user);
+        put(buffer, action);
+        put(buffer, details);
+
+        segment.track(timestamp);
+        // Publicar el registro para los lectores solo cuando está completo
+        segment.committed = position + recordSize;
+    }
+
+    private Segment current() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private Segment roll() throws IOException {
+        long nextSequence = 1;
+        if (!segments.isEmpty()) {
+            Segment previous = current();
+            previous.buffer.force();
+            nextSequence = previous.sequence + 1;
+        }
+
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        Segment segment = Segment.open(path, nextSequence, segmentSize);
+        segments.add(segment);
+        applyRetention();
+        return segment;
+    }
+
+    /**
+     * Borra los segmentos más antiguos (nunca el actual) si se supera el número
+     * máximo de segmentos o si todos sus registros son más antiguos que la retención.
+     *
+     * La llaman el drenador (al abrir un segmento) y el hilo de retención: es el único
+     * sitio que borra segmentos, así que basta con sincronizarlo.
+     */
+    synchronized void applyRetention() {
+        long cutoff = clock.millis() - retention.toMillis();
+        while (segments.size() > 1) {
+            Segment oldest = segments.get(0);
+            boolean tooMany = segments.size() > maxSegments;
+            boolean expired = oldest.maxTimestamp < cutoff;
+            if (!tooMany && !expired) {
+                break;
+            }
+            segments.remove(oldest);
+            try {
+                // El mapeo sigue siendo válido para lecturas en curso hasta que lo libere el GC
+                Files.deleteIfExists(oldest.path);
+            } catch (IOException e) {
+                log.warn("No se pudo borrar el segmento {}: {}", oldest.path, e.getMessage());
+            }
+        }
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int sizeOf(byte[] value) {
+        return Integer.BYTES + (value != null ? value.length : 0);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    /**
+     * Un fichero de segmento mapeado en memoria.
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final long sequence;
+        private final MappedByteBuffer buffer;
+
+        // Posición hasta la que hay registros completos (la escribe solo el drenador)
+        private volatile int committed;
+        private volatile long minTimestamp = Long.MAX_VALUE;
+        private volatile long maxTimestamp = Long.MIN_VALUE;
+
+        private Segment(Path path, long sequence, MappedByteBuffer buffer) {
+            this.path = path;
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, long sequence, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long mappedSize = Math.max(size, channel.size());
+                Segment segment = new Segment(path, sequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize));
+                segment.recover();
+                return segment;
+            }
+        }
+
+        /**
+         * Recorre un segmento existente para encontrar el final de los datos
+         * y el rango de timestamps que contiene.
+         */
+        private void recover() {
+            ByteBuffer view = buffer.duplicate();
+            int position = 0;
+            while (position + Integer.BYTES <= view.capacity()) {
+                int length = view.getInt(position);
+                if (length < FIXED_FIELDS_SIZE || position + Integer.BYTES + length > view.capacity()) {
+                    break;
+                }
+                track(view.getLong(position + Integer.BYTES));
+                position += Integer.BYTES + length;
+            }
+            committed = position;
+        }
+
+        int remaining() {
+            return buffer.capacity() - committed;
+        }
+
+        void track(long timestamp) {
+            if (timestamp < minTimestamp) {
+                minTimestamp = timestamp;
+            }
+            if (timestamp > maxTimestamp) {
+                maxTimestamp = timestamp;
+            }
+        }
+
+        boolean overlaps(long fromMillis, long toMillis) {
+            return committed > 0 && minTimestamp <= toMillis && maxTimestamp >= fromMillis;
+        }
+
+        /**
+         * Stream perezoso sobre los registros del segmento que cumplen los filtros.
+         * Los registros descartados por tiempo o path no se decodifican por completo.
+         */
+        Stream<AuditLog> scan(long fromMillis, long toMillis, byte[] pathPrefix, ZoneId zone) {
+            ByteBuffer view = buffer.duplicate();
+            int limit = committed;
+
+            Spliterator<AuditLog> spliterator = new Spliterators.AbstractSpliterator<>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+                private int position = 0;
+
+                @Override
+                public boolean tryAdvance(Consumer<? super AuditLog> action) {
+                    while (position < limit) {
+                        int recordStart = position + Integer.BYTES;
+                        position = recordStart + view.getInt(position);
+
+                        long timestamp = view.getLong(recordStart);
+                        if (timestamp < fromMillis || timestamp > toMillis) {
+                            continue;
+                        }
+
+                        view.position(recordStart + FIXED_FIELDS_SIZE);
+                        String method = readString(view);
+                        if (pathPrefix != null && !startsWith(view, pathPrefix)) {
+                            continue;
+                        }
+                        String path = readString(view);
+
+                        long duration = view.getLong(recordStart + Long.BYTES);
+                        action.accept(new AuditLog(
+                                LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), zone),
+                                method,
+                                path,
+                                readString(view),
+                                readString(view),
+                                readString(view),
+                                duration >= 0 ? duration : null
+                        ));
+                        return true;
+                    }
+                    return false;
+                }
+            };
+            return StreamSupport.stream(spliterator, false);
+        }
+
+        private static String readString(ByteBuffer view) {
+            int length = view.getInt();
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            byte[] value = new byte[length];
+            view.get(value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Comprueba si el String codificado en la posición actual empieza por el prefijo,
+         * sin decodificarlo ni mover la posición.
+         */
+        private static boolean startsWith(ByteBuffer view, byte[] prefix) {
+            int start = view.position();
+            int length = view.getInt(start);
+            if (length < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (view.get(start + Integer.BYTES + i) != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
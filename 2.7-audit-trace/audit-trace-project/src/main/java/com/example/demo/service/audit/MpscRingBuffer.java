@@ -0,0 +1,122 @@
+package com.example.demo.service.audit;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cola circular acotada y sin bloqueos para varios productores y un único consumidor (MPSC).
+ *
+ * Los hilos de las peticiones (productores) encolan con un CAS sobre el índice de escritura,
+ * sin locks ni esperas. Un único hilo (el drenador de auditoría) consume los elementos.
+ *
+ * Cada posición tiene un número de secuencia que indica si está libre para escribir
+ * o lista para leer (algoritmo de Dmitry Vyukov para colas acotadas).
+ *
+ * @param <E> Tipo de elemento
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Solo lo escribe el consumidor; volatile para que size() sea coherente desde otros hilos
+    private volatile long head;
+
+    /**
+     * @param requestedCapacity Capacidad mínima (se redondea a la siguiente potencia de 2)
+     */
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("La capacidad debe ser al menos 2");
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Intenta encolar un elemento. Seguro para llamar desde cualquier hilo.
+     *
+     * @param element Elemento a encolar (no null)
+     * @return true si se encoló, false si la cola está llena
+     */
+    public boolean offer(E element) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                // La posición aún no la ha liberado el consumidor: cola llena
+                return false;
+            }
+            // Otro productor reservó esta posición: reintentar con el nuevo índice
+        }
+
+        buffer.lazySet(index, element);
+        // Publicar: el consumidor verá el elemento cuando la secuencia sea position + 1
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Extrae el siguiente elemento. Solo debe llamarlo el hilo consumidor.
+     *
+     * @return El elemento, o null si la cola está vacía
+     */
+    public E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        E element = buffer.get(index);
+        buffer.lazySet(index, null);
+        // Liberar la posición para la siguiente vuelta del anillo
+        sequences.set(index, position + capacity);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Extrae hasta maxElements elementos y los añade a target. Solo para el hilo consumidor.
+     *
+     * @return Número de elementos extraídos
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        int drained = 0;
+        E element;
+        while (drained < maxElements && (element = poll()) != null) {
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Número aproximado de elementos en cola (puede cambiar mientras se lee).
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.filter;
+
+import com.example.demo.filter.capture.CaptureMode;
+import com.example.demo.model.AuditLog;
+import com.example.demo.service.AuditService;
+import com.example.demo.service.RequestLatencyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Bytes contados y prefijos de los bodies en el registro de AuditFilter, en los dos
+ * modos de captura, y que el registro se emite aunque la petición falle.
+ */
+class AuditFilterTest {
+
+    private static final String REQUEST_BODY = "{\"name\":\"Ana\"}";
+    private static final String RESPONSE_BODY = "{\"id\":1,\"name\":\"Ana\"}";
+
+    private final AuditService auditService = mock(AuditService.class);
+    private final RequestLatencyService latencyService = new RequestLatencyService(new SimpleMeterRegistry());
+
+    @Test
+    void streamingCountsBytesAndKeepsPrefixes() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(CaptureMode.STREAMING, 8).doFilter(post(), response, new MockFilterChain(new EchoServlet()));
+
+        assertThat(response.getContentAsString()).isEqualTo(RESPONSE_BODY);
+        assertThat(auditedDetails()).isEqualTo("Status: 201, Request: 14 B, Response: 21 B"
+                + ", Request body: {\"name\":..., Response body: {\"id\":1,...");
+    }
+
+    @Test
+    void cachingCountsBytesAndKeepsPrefixes() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(CaptureMode.CACHING, 8).doFilter(post(), response, new MockFilterChain(new EchoServlet()));
+
+        assertThat(response.getContentAsString()).isEqualTo(RESPONSE_BODY);
+        assertThat(auditedDetails()).isEqualTo("Status: 201, Request: 14 B, Response: 21 B"
+                + ", Request body: {\"name\":..., Response body: {\"id\":1,...");
+    }
+
+    @Test
+    void bodiesShorterThanThePrefixAreNotMarkedAsTruncated() throws Exception {
+        filter(CaptureMode.STREAMING, 64).doFilter(post(), new MockHttpServletResponse(),
+                new MockFilterChain(new EchoServlet()));
+
+        assertThat(auditedDetails()).endsWith(", Request body: " + REQUEST_BODY + ", Response body: " + RESPONSE_BODY);
+    }
+
+    @Test
+    void withoutPrefixOnlyByteCountsAreRecorded() throws Exception {
+        filter(CaptureMode.STREAMING, 0).doFilter(post(), new MockHttpServletResponse(),
+                new MockFilterChain(new EchoServlet()));
+
+        assertThat(auditedDetails()).isEqualTo("Status: 201, Request: 14 B, Response: 21 B");
+    }
+
+    @Test
+    void failedRequestIsStillAuditedAndKeepsItsException() {
+        ServletException failure = new ServletException("boom");
+        HttpServlet failing = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response)
+                    throws ServletException {
+                throw failure;
+            }
+        };
+
+        assertThatThrownBy(() -> filter(CaptureMode.STREAMING, 8)
+                .doFilter(post(), new MockHttpServletResponse(), new MockFilterChain(failing)))
+                .isSameAs(failure);
+        assertThat(auditedDetails()).startsWith("Status: 200, Request: 0 B, Response: 0 B");
+    }
+
+    @Test
+    void disconnectedClientDoesNotSkipTheAuditRecord() throws Exception {
+        // El writer acumula la respuesta; el fallo aparece al volcarla en el filtro
+        MockHttpServletResponse disconnected = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new BrokenOutputStream();
+            }
+        };
+
+        filter(CaptureMode.STREAMING, 8).doFilter(post(), disconnected, new MockFilterChain(new EchoServlet()));
+
+        assertThat(auditedDetails()).startsWith("Status: 201, Request: 14 B, Response: 0 B");
+    }
+
+    private AuditFilter filter(CaptureMode mode, int prefixBytes) {
+        return new AuditFilter(auditService, latencyService, mode, prefixBytes);
+    }
+
+    private String auditedDetails() {
+        ArgumentCaptor<AuditLog> captor = ArgumentCaptor.forClass(AuditLog.class);
+        verify(auditService, times(1)).log(captor.capture());
+        AuditLog auditLog = captor.getValue();
+        assertThat(auditLog.getMethod()).isEqualTo("POST");
+        assertThat(auditLog.getPath()).isEqualTo("/api/users");
+        return auditLog.getDetails();
+    }
+
+    private static MockHttpServletRequest post() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users");
+        request.setContentType("application/json");
+        request.setContent(REQUEST_BODY.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    /**
+     * Lee el body completo de la petición y responde con un JSON a través del writer.
+     */
+    private static class EchoServlet extends HttpServlet {
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            StreamUtils.copyToByteArray(request.getInputStream());
+            response.setStatus(201);
+            response.setCharacterEncoding("UTF-8");
+            response.setContentType("application/json");
+            response.getWriter().write(RESPONSE_BODY);
+        }
+    }
+
+    private static class BrokenOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new IOException("Broken pipe");
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}
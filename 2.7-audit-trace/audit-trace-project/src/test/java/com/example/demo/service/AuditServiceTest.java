@@ -0,0 +1,173 @@
+package com.example.demo.service;
+
+import com.example.demo.model.AuditLog;
+import com.example.demo.service.audit.AuditSink;
+import com.example.demo.service.audit.BackpressurePolicy;
+import com.example.demo.service.audit.InMemoryAuditSink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Políticas de contrapresión de AuditService con la cola llena.
+ *
+ * El sink se queda bloqueado en el primer lote, así el drenador no vacía la cola
+ * y se puede llenar de forma determinista.
+ */
+class AuditServiceTest {
+
+    private static final int CAPACITY = 8;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GatedSink sink = new GatedSink();
+    private AuditService auditService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        sink.release();
+        if (auditService != null) {
+            auditService.stop();
+        }
+    }
+
+    @Test
+    void dropDiscardsWhenQueueIsFull() throws InterruptedException {
+        auditService = start(BackpressurePolicy.DROP);
+        blockDrainer();
+
+        logAll(1, CAPACITY + 5);
+
+        assertThat(dropped()).isEqualTo(5);
+        assertThat(queueDepth()).isEqualTo(CAPACITY);
+
+        sink.release();
+        auditService.stop();
+        assertThat(sink.paths()).containsExactlyElementsOf(paths(0, CAPACITY + 1));
+    }
+
+    @Test
+    void blockWaitsForRoomAndLosesNothing() throws Exception {
+        auditService = start(BackpressurePolicy.BLOCK);
+        blockDrainer();
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> logAll(1, CAPACITY + 5));
+
+        // El productor llena la cola y se queda esperando hueco
+        awaitQueueDepth(CAPACITY);
+        assertThat(producer).isNotDone();
+
+        sink.release();
+        producer.get(5, TimeUnit.SECONDS);
+        auditService.stop();
+
+        assertThat(dropped()).isZero();
+        assertThat(sink.paths()).containsExactlyElementsOf(paths(0, CAPACITY + 6));
+    }
+
+    @Test
+    void sampleKeepsOneInNUnderPressureThenDrops() throws InterruptedException {
+        auditService = start(BackpressurePolicy.SAMPLE);
+        blockDrainer();
+
+        // Hasta la mitad de la capacidad se encola todo; después 1 de cada 2
+        logAll(1, CAPACITY / 2 + CAPACITY);
+        assertThat(queueDepth()).isEqualTo(CAPACITY);
+        assertThat(sampled()).isEqualTo(CAPACITY / 2);
+        assertThat(dropped()).isZero();
+
+        // Con la cola llena, el registro que supera el muestreo se descarta
+        logAll(100, 2);
+        assertThat(sampled()).isEqualTo(CAPACITY / 2 + 1);
+        assertThat(dropped()).isEqualTo(1);
+    }
+
+    private AuditService start(BackpressurePolicy policy) {
+        AuditService service = new AuditService(List.of(sink), new InMemoryAuditSink(100), Optional.empty(),
+                registry, CAPACITY, 1, Duration.ofMillis(1), policy, 2);
+        service.start();
+        return service;
+    }
+
+    /**
+     * Envía un registro y espera a que el drenador se quede bloqueado escribiéndolo.
+     */
+    private void blockDrainer() throws InterruptedException {
+        auditService.log(log(0));
+        assertThat(sink.entered.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void logAll(int first, int count) {
+        IntStream.range(first, first + count).forEach(i -> auditService.log(log(i)));
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(queueDepth()).isEqualTo(depth);
+    }
+
+    private double dropped() {
+        return registry.get("audit.dropped").functionCounter().count();
+    }
+
+    private double sampled() {
+        return registry.get("audit.sampled").functionCounter().count();
+    }
+
+    private double queueDepth() {
+        return registry.get("audit.queue.depth").gauge().value();
+    }
+
+    private static List<String> paths(int first, int count) {
+        return IntStream.range(first, first + count).mapToObj(i -> "/api/" + i).toList();
+    }
+
+    private static AuditLog log(int i) {
+        return new AuditLog(LocalDateTime.now(), "GET", "/api/" + i, "user", "READ", null, 1L);
+    }
+
+    /**
+     * Sink que bloquea el primer lote hasta release() y guarda todo lo que recibe.
+     */
+    private static final class GatedSink implements AuditSink {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final List<AuditLog> received = new ArrayList<>();
+
+        @Override
+        public void write(List<AuditLog> batch) {
+            synchronized (this) {
+                received.addAll(batch);
+            }
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        synchronized List<String> paths() {
+            return received.stream().map(AuditLog::getPath).toList();
+        }
+    }
+}
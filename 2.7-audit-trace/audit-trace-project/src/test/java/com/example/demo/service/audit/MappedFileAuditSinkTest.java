@@ -0,0 +1,217 @@
+package com.example.demo.service.audit;
+
+import com.example.demo.model.AuditLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas del almacén en ficheros mapeados: escritura, cambio de segmento,
+ * recuperación tras reinicio, consultas y retención.
+ *
+ * El reloj usa una zona distinta de UTC para comprobar que la retención
+ * no se desplaza por la diferencia horaria.
+ */
+class MappedFileAuditSinkTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Mexico_City");
+    private static final DataSize SMALL_SEGMENT = DataSize.ofBytes(1024);
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-10T12:00:00Z"), ZONE);
+    private final List<MappedFileAuditSink> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeSinks() {
+        opened.forEach(MappedFileAuditSink::close);
+    }
+
+    @Test
+    void appendedRecordsAreReturnedByQuery() throws IOException {
+        MappedFileAuditSink sink = open(DataSize.ofMegabytes(1), 16, Duration.ofDays(7), Duration.ZERO);
+        LocalDateTime now = LocalDateTime.now(clock);
+        AuditLog first = log(now, "/api/users/1");
+        AuditLog second = log(now.plusSeconds(1), "/api/orders/7");
+
+        sink.write(List.of(first, second));
+
+        assertThat(query(sink, null, null, null)).containsExactly(first, second);
+    }
+
+    @Test
+    void scanFiltersByTimeRangeAndPathPrefix() throws IOException {
+        MappedFileAuditSink sink = open(DataSize.ofMegabytes(1), 16, Duration.ofDays(7), Duration.ZERO);
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<AuditLog> logs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            logs.add(log(now.plusMinutes(i), (i % 2 == 0 ? "/api/users/" : "/api/orders/") + i));
+        }
+        sink.write(logs);
+
+        assertThat(query(sink, now.plusMinutes(2), now.plusMinutes(5), null))
+                .containsExactlyElementsOf(logs.subList(2, 6));
+        assertThat(query(sink, null, null, "/api/users"))
+                .extracting(AuditLog::getPath)
+                .containsExactly("/api/users/0", "/api/users/2", "/api/users/4", "/api/users/6", "/api/users/8");
+        assertThat(query(sink, now.plusMinutes(3), null, "/api/orders"))
+                .extracting(AuditLog::getPath)
+                .containsExactly("/api/orders/3", "/api/orders/5", "/api/orders/7", "/api/orders/9");
+    }
+
+    @Test
+    void rollsToNewSegmentWhenCurrentIsFull() throws IOException {
+        MappedFileAuditSink sink = open(SMALL_SEGMENT, 100, Duration.ofDays(7), Duration.ZERO);
+        List<AuditLog> logs = writeLogs(sink, 100);
+
+        assertThat(segmentFiles()).hasSizeGreaterThan(3);
+        assertThat(query(sink, null, null, null)).containsExactlyElementsOf(logs);
+    }
+
+    @Test
+    void recoverReopensExistingSegmentsAndKeepsAppending() throws IOException {
+        MappedFileAuditSink sink = open(SMALL_SEGMENT, 100, Duration.ofDays(7), Duration.ZERO);
+        List<AuditLog> before = writeLogs(sink, 40);
+        sink.close();
+        opened.remove(sink);
+
+        MappedFileAuditSink reopened = open(SMALL_SEGMENT, 100, Duration.ofDays(7), Duration.ZERO);
+        assertThat(query(reopened, null, null, null)).containsExactlyElementsOf(before);
+
+        AuditLog after = log(LocalDateTime.now(clock).plusHours(1), "/api/after-restart");
+        reopened.write(List.of(after));
+        List<AuditLog> expected = new ArrayList<>(before);
+        expected.add(after);
+        assertThat(query(reopened, null, null, null)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void retentionRemovesOldestSegmentsBeyondMaxSegments() throws IOException {
+        MappedFileAuditSink sink = open(SMALL_SEGMENT, 2, Duration.ofDays(7), Duration.ZERO);
+        List<AuditLog> logs = writeLogs(sink, 100);
+
+        assertThat(segmentFiles()).hasSize(2);
+        List<AuditLog> remaining = query(sink, null, null, null);
+        assertThat(remaining).isNotEmpty();
+        // Se conservan los más recientes, en orden
+        assertThat(logs).endsWith(remaining.toArray(AuditLog[]::new));
+    }
+
+    @Test
+    void retentionUsesRealTimeRegardlessOfZoneOffset() throws IOException {
+        MappedFileAuditSink sink = open(SMALL_SEGMENT, 100, Duration.ofHours(1), Duration.ZERO);
+        writeLogs(sink, 40);
+        int segments = segmentFiles().size();
+
+        // A mitad de la retención no se borra nada (con la zona tomada como UTC se borraría)
+        clock.advance(Duration.ofMinutes(30));
+        sink.applyRetention();
+        assertThat(segmentFiles()).hasSize(segments);
+
+        clock.advance(Duration.ofHours(1));
+        sink.applyRetention();
+        // El segmento actual nunca se borra
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    @Test
+    void retentionRunsOnScheduleWithoutTraffic() throws Exception {
+        MappedFileAuditSink sink = open(SMALL_SEGMENT, 100, Duration.ofHours(1), Duration.ofMillis(20));
+        writeLogs(sink, 40);
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+
+        clock.advance(Duration.ofHours(2));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (segmentFiles().size() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(segmentFiles()).hasSize(1);
+    }
+
+    private MappedFileAuditSink open(DataSize segmentSize, int maxSegments, Duration retention,
+                                     Duration retentionCheckInterval) throws IOException {
+        MappedFileAuditSink sink = new MappedFileAuditSink(directory, segmentSize, maxSegments, retention,
+                retentionCheckInterval, clock);
+        sink.open();
+        opened.add(sink);
+        return sink;
+    }
+
+    /**
+     * Escribe count registros de un minuto en un minuto desde el instante actual del reloj.
+     */
+    private List<AuditLog> writeLogs(MappedFileAuditSink sink, int count) {
+        LocalDateTime start = LocalDateTime.now(clock).minusMinutes(count);
+        List<AuditLog> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AuditLog auditLog = log(start.plusMinutes(i), "/api/users/" + i);
+            sink.write(List.of(auditLog));
+            logs.add(auditLog);
+        }
+        return logs;
+    }
+
+    private static List<AuditLog> query(MappedFileAuditSink sink, LocalDateTime from, LocalDateTime to, String path) {
+        try (Stream<AuditLog> logs = sink.query(from, to, path)) {
+            return logs.toList();
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).toList();
+        }
+    }
+
+    private static AuditLog log(LocalDateTime timestamp, String path) {
+        // Precisión de milisegundos: es la que guarda el almacén
+        LocalDateTime millis = timestamp.withNano(timestamp.getNano() / 1_000_000 * 1_000_000);
+        return new AuditLog(millis, "GET", path, "user", "READ", null, 12L);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private final ZoneId zone;
+        private volatile Instant now;
+
+        MutableClock(Instant now, ZoneId zone) {
+            this.now = now;
+            this.zone = zone;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(now, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pruebas de la cola MPSC: varios productores concurrentes y un único consumidor.
+ */
+class MpscRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int ITEMS_PER_PRODUCER = 50_000;
+
+    @Test
+    void concurrentProducersLoseNothingAndKeepOrderPerProducer() throws Exception {
+        // Capacidad pequeña para que el anillo dé muchas vueltas y se llene a menudo
+        MpscRingBuffer<Item> buffer = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int producer = 0; producer < PRODUCERS; producer++) {
+                int id = producer;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (int sequence = 0; sequence < ITEMS_PER_PRODUCER; sequence++) {
+                        Item item = new Item(id, sequence);
+                        while (!buffer.offer(item)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            int[] next = new int[PRODUCERS];
+            long received = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (received < (long) PRODUCERS * ITEMS_PER_PRODUCER) {
+                Item item = buffer.poll();
+                if (item == null) {
+                    assertThat(System.nanoTime()).as("tiempo de espera agotado").isLessThan(deadline);
+                    Thread.yield();
+                    continue;
+                }
+                // Cada productor llega en orden y sin huecos: ni pérdidas ni duplicados
+                assertThat(item.sequence()).as("productor %d", item.producer()).isEqualTo(next[item.producer()]);
+                next[item.producer()]++;
+                received++;
+            }
+
+            for (Future<?> producer : producers) {
+                producer.get(5, TimeUnit.SECONDS);
+            }
+            assertThat(next).containsOnly(ITEMS_PER_PRODUCER);
+            assertThat(buffer.poll()).isNull();
+            assertThat(buffer.size()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void offerFailsWhenFullAndSucceedsAfterPoll() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(4)).isTrue();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void drainToRespectsMaxElements() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 3)).isEqualTo(3);
+        assertThat(drained).containsExactly(0, 1, 2);
+        assertThat(buffer.size()).isEqualTo(2);
+    }
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new MpscRingBuffer<>(2).capacity()).isEqualTo(2);
+        assertThat(new MpscRingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new MpscRingBuffer<>(1024).capacity()).isEqualTo(1024);
+        assertThatThrownBy(() -> new MpscRingBuffer<>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private record Item(int producer, int sequence) {
+    }
+}
@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+#
+# Compara RestTemplate con hilos de plataforma, RestTemplate con hilos virtuales y WebClient
+# contra un servidor local con latencia fija (UpstreamStub).
+#
+# Para cada modo arranca la aplicación, lanza `hey` contra el endpoint y muestra:
+# peticiones/s, latencia p99, hilos de plataforma (pico), heap usado y memoria residente (pico).
+#
+# Requisitos: JDK 21 (para el modo con hilos virtuales), Maven, hey y curl.
+#
+# Uso:
+#   ./load-test/compare-virtual-threads.sh
+#   LATENCY=500ms REQUESTS=20000 CONCURRENCY=1000 ./load-test/compare-virtual-threads.sh
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+LATENCY=${LATENCY:-200ms}
+REQUESTS=${REQUESTS:-10000}
+CONCURRENCY=${CONCURRENCY:-400}
+STUB_PORT=${STUB_PORT:-8081}
+APP_PORT=${APP_PORT:-8090}
+
+command -v hey >/dev/null || { echo "Falta 'hey' (https://github.com/rakyll/hey)"; exit 1; }
+
+JAVA_MAJOR=$(java -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')
+if [ "${JAVA_MAJOR%%.*}" -lt 21 ]; then
+    echo "Aviso: Java $JAVA_MAJOR no tiene hilos virtuales; el modo 'virtual' se ejecutará con hilos de plataforma."
+fi
+
+mvn -B -q package -DskipTests
+mvn -B -q test-compile
+JAR=$(ls target/*.jar | grep -v original | head -1)
+
+java -cp target/test-classes com.example.demo.support.UpstreamStub --port="$STUB_PORT" --latency="$LATENCY" &
+STUB_PID=$!
+APP_PID=
+trap 'kill $STUB_PID ${APP_PID:-} 2>/dev/null || true' EXIT
+until curl -s "http://127.0.0.1:$STUB_PORT/get" >/dev/null; do sleep 1; done
+
+metric() {
+    curl -s "http://localhost:$APP_PORT/actuator/metrics/$1${2:+?tag=$2}" \
+        | sed -n 's/.*"statistic":"VALUE","value":\([0-9.E+]*\).*/\1/p'
+}
+
+run() {
+    local name=$1 virtual=$2 path=$3
+
+    java -jar "$JAR" --server.port="$APP_PORT" \
+        --spring.threads.virtual.enabled="$virtual" \
+        --external.apis.httpbin.base-url="http://127.0.0.1:$STUB_PORT" \
+        --external.apis.jsonplaceholder.base-url="http://127.0.0.1:$STUB_PORT" \
+        --http.client.max-connections="$CONCURRENCY" --http.client.max-per-route="$CONCURRENCY" \
+        --logging.level.root=WARN --logging.level.com.example.demo=WARN \
+        --logging.level.org.springframework.web=WARN --logging.level.reactor.netty=WARN \
+        >"target/load-$name.log" 2>&1 &
+    APP_PID=$!
+
+    until curl -s "http://localhost:$APP_PORT/actuator/health" >/dev/null; do sleep 1; done
+
+    # Calentamiento (JIT y conexiones del pool)
+    hey -n 1000 -c 50 "http://localhost:$APP_PORT$path" >/dev/null
+
+    local out
+    out=$(hey -n "$REQUESTS" -c "$CONCURRENCY" "http://localhost:$APP_PORT$path")
+    local rps p99 threads heap rss
+    rps=$(echo "$out" | awk '/Requests\/sec/ {print $2}')
+    p99=$(echo "$out" | awk '/ 99% in/ {print $3 * 1000}')
+    threads=$(metric jvm.threads.peak)
+    heap=$(metric jvm.memory.used area:heap | awk '{printf "%.0f", $1 / 1048576}')
+    rss=$(awk '/VmHWM/ {printf "%.0f", $2 / 1024}' "/proc/$APP_PID/status" 2>/dev/null || echo "?")
+
+    printf "%-22s %-40s %10s %10s %10s %10s %10s\n" "$name" "$path" "$rps" "$p99" "${threads%.*}" "$heap" "$rss"
+
+    kill "$APP_PID"
+    wait "$APP_PID" 2>/dev/null || true
+    APP_PID=
+}
+
+echo
+echo "Latencia del stub: $LATENCY, peticiones: $REQUESTS, concurrencia: $CONCURRENCY"
+printf "%-22s %-40s %10s %10s %10s %10s %10s\n" "Modo" "Endpoint" "req/s" "p99 (ms)" "Hilos" "Heap (MB)" "RSS (MB)"
+run resttemplate-platform false /api/httpbin/resttemplate/get
+run resttemplate-virtual  true  /api/httpbin/resttemplate/get
+run webclient             false /api/httpbin/webclient/get
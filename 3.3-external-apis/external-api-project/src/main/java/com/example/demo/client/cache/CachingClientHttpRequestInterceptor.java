@@ -0,0 +1,103 @@
+package com.example.demo.client.cache;
+
+import com.example.demo.client.cache.HttpResponseCache.CachedResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Interceptor de RestTemplate que sirve los GET desde HttpResponseCache.
+ *
+ * - Entrada fresca: se responde sin contactar al servidor
+ * - Entrada caducada con ETag/Last-Modified: petición condicional; si el servidor
+ *   responde 304 se devuelve el body guardado
+ * - Respuesta 200 cacheable: se guarda y se devuelve
+ * - Petición con Cache-Control: no-store o con Authorization: pasa sin tocar la caché
+ */
+@RequiredArgsConstructor
+public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final HttpResponseCache cache;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (request.getMethod() != HttpMethod.GET || HttpResponseCache.isBypassed(request.getHeaders())) {
+            return execution.execute(request, body);
+        }
+
+        URI uri = request.getURI();
+        CachedResponse cached = cache.get(uri, request.getHeaders());
+        if (cached != null && cached.isFresh()) {
+            cache.recordHit();
+            return new CachedClientHttpResponse(HttpStatus.OK, cached.headers(), cached.body());
+        }
+        if (cached != null && cached.canRevalidate()) {
+            cache.addConditionalHeaders(cached, request.getHeaders());
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+        HttpStatusCode status = response.getStatusCode();
+
+        if (cached != null && HttpResponseCache.isNotModified(status)) {
+            CachedResponse renewed = cache.revalidated(uri, cached, response.getHeaders());
+            response.close();
+            return new CachedClientHttpResponse(HttpStatus.OK, renewed.headers(), renewed.body());
+        }
+
+        HttpHeaders headers = response.getHeaders();
+        if (!HttpResponseCache.isCacheableStatus(status) || !cache.isCacheable(headers)) {
+            return response;
+        }
+
+        // Leer el body para poder guardarlo y devolver una copia a RestTemplate
+        byte[] responseBody;
+        try (response) {
+            responseBody = response.getBody().readAllBytes();
+        }
+        cache.store(uri, request.getHeaders(), headers, responseBody);
+        return new CachedClientHttpResponse(status, headers, responseBody);
+    }
+
+    /**
+     * Respuesta en memoria (desde caché o ya leída del servidor).
+     */
+    private record CachedClientHttpResponse(HttpStatusCode statusCode, HttpHeaders headers, byte[] body)
+            implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getStatusText() {
+            return statusCode instanceof HttpStatus httpStatus ? httpStatus.getReasonPhrase() : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
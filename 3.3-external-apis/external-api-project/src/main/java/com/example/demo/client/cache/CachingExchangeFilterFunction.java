@@ -0,0 +1,91 @@
+package com.example.demo.client.cache;
+
+import com.example.demo.client.cache.HttpResponseCache.CachedResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Filtro de WebClient que sirve los GET desde HttpResponseCache.
+ *
+ * Mismo comportamiento que CachingClientHttpRequestInterceptor pero reactivo:
+ * las entradas frescas se devuelven sin hacer la petición, las caducadas se
+ * revalidan con una petición condicional y las respuestas 200 cacheables se guardan.
+ */
+@RequiredArgsConstructor
+public class CachingExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private final HttpResponseCache cache;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET || HttpResponseCache.isBypassed(request.headers())) {
+            return next.exchange(request);
+        }
+
+        URI uri = request.url();
+        CachedResponse cached = cache.get(uri, request.headers());
+        if (cached != null && cached.isFresh()) {
+            cache.recordHit();
+            return Mono.just(toClientResponse(HttpStatus.OK, cached.headers(), cached.body()));
+        }
+
+        ClientRequest outgoing = request;
+        if (cached != null && cached.canRevalidate()) {
+            outgoing = ClientRequest.from(request)
+                    .headers(headers -> cache.addConditionalHeaders(cached, headers))
+                    .build();
+        }
+
+        return next.exchange(outgoing).flatMap(response -> {
+            HttpStatusCode status = response.statusCode();
+
+            if (cached != null && HttpResponseCache.isNotModified(status)) {
+                CachedResponse renewed = cache.revalidated(uri, cached, response.headers().asHttpHeaders());
+                return response.releaseBody()
+                        .thenReturn(toClientResponse(HttpStatus.OK, renewed.headers(), renewed.body()));
+            }
+
+            HttpHeaders headers = response.headers().asHttpHeaders();
+            if (!HttpResponseCache.isCacheableStatus(status) || !cache.isCacheable(headers)) {
+                // Las respuestas que no se guardan siguen fluyendo sin agregarse en memoria
+                return Mono.just(response);
+            }
+
+            return DataBufferUtils.join(response.body(BodyExtractors.toDataBuffers()))
+                    .map(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        return bytes;
+                    })
+                    .defaultIfEmpty(new byte[0])
+                    .map(body -> {
+                        cache.store(uri, request.headers(), headers, body);
+                        return toClientResponse(status, headers, body);
+                    });
+        });
+    }
+
+    private ClientResponse toClientResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.wrap(body);
+        return ClientResponse.create(status)
+                .headers(target -> target.addAll(headers))
+                .body(Flux.just(buffer))
+                .build();
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.demo.client.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché HTTP de respuestas GET compartida por RestTemplate y WebClient.
+ *
+ * Sigue la semántica de HTTP en lugar de un TTL fijo:
+ * - Cache-Control: max-age (menos Age) o Expires indican cuánto tiempo es fresca una respuesta
+ * - Cache-Control: no-store impide guardarla; no-cache obliga a revalidar siempre
+ * - Si la respuesta trae ETag o Last-Modified, al caducar se revalida con
+ *   If-None-Match / If-Modified-Since: un 304 renueva la entrada sin volver a descargar el body
+ * - Vary: la entrada guarda los valores de esos headers en la petición original y solo se
+ *   sirve a peticiones con los mismos valores (Vary: * no se guarda)
+ * - Las peticiones con Authorization no pasan por la caché: es compartida por todos los
+ *   usuarios de la aplicación y no debe servir a uno la respuesta de otro
+ *
+ * El tamaño total está acotado por http.client.cache.max-size (suma de los bodies).
+ * Publica métricas de Caffeine (cache=httpResponses) y http.client.cache.requests{result}.
+ */
+@Component
+public class HttpResponseCache {
+
+    /** Headers que no se guardan: son de la conexión o se recalculan al servir desde caché */
+    private static final Set<String> EXCLUDED_HEADERS = Set.of(
+            "connection", "keep-alive", "transfer-encoding", "content-length", "set-cookie");
+
+    private static final long NOT_CACHEABLE = -1;
+
+    private final Cache<URI, CachedResponse> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public HttpResponseCache(@Value("${http.client.cache.max-size:10MB}") DataSize maxSize,
+                             MeterRegistry meterRegistry) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((URI uri, CachedResponse response) -> response.body().length)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "httpResponses");
+        // hit: servida sin contactar al servidor, revalidated: 304 Not Modified, miss: descargada
+        registerCounter(meterRegistry, hits, "hit");
+        registerCounter(meterRegistry, revalidated, "revalidated");
+        registerCounter(meterRegistry, misses, "miss");
+    }
+
+    /**
+     * Indica si la petición no debe usar la caché:
+     * - Cache-Control: no-store en la petición (lo usan las lecturas en streaming para
+     *   que la respuesta no se acumule en memoria)
+     * - Authorization: la respuesta depende del usuario
+     */
+    public static boolean isBypassed(HttpHeaders requestHeaders) {
+        if (requestHeaders.containsKey(HttpHeaders.AUTHORIZATION)) {
+            return true;
+        }
+        String cacheControl = requestHeaders.getCacheControl();
+        return cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-store");
+    }
+
+    /**
+     * @return La entrada guardada para la URI (fresca o no) si coincide con los headers
+     *         de Vary de la petición, o null
+     */
+    public CachedResponse get(URI uri, HttpHeaders requestHeaders) {
+        CachedResponse cached = entries.getIfPresent(uri);
+        return cached != null && cached.matches(requestHeaders) ? cached : null;
+    }
+
+    /**
+     * Añade los headers condicionales de una entrada caducada a la petición.
+     */
+    public void addConditionalHeaders(CachedResponse cached, HttpHeaders requestHeaders) {
+        if (cached.etag() != null) {
+            requestHeaders.set(HttpHeaders.IF_NONE_MATCH, cached.etag());
+        }
+        if (cached.lastModified() != null) {
+            requestHeaders.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+        }
+    }
+
+    /**
+     * @return true si los headers de la respuesta permiten guardarla
+     */
+    public boolean isCacheable(HttpHeaders responseHeaders) {
+        return freshUntil(responseHeaders) != NOT_CACHEABLE;
+    }
+
+    /**
+     * Guarda una respuesta 200 si sus headers lo permiten.
+     *
+     * Sustituye a la variante que hubiera guardada para la URI.
+     *
+     * @param requestHeaders Headers de la petición, para los valores de Vary
+     * @return true si se guardó
+     */
+    public boolean store(URI uri, HttpHeaders requestHeaders, HttpHeaders responseHeaders, byte[] body) {
+        misses.incrementAndGet();
+        long freshUntil = freshUntil(responseHeaders);
+        if (freshUntil == NOT_CACHEABLE) {
+            return false;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        responseHeaders.forEach((name, values) -> {
+            if (!EXCLUDED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, values);
+            }
+        });
+        headers.setContentLength(body.length);
+
+        entries.put(uri, new CachedResponse(HttpHeaders.readOnlyHttpHeaders(headers), body,
+                responseHeaders.getETag(), responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED), freshUntil,
+                varyValues(requestHeaders, responseHeaders)));
+        return true;
+    }
+
+    /**
+     * Renueva una entrada tras recibir 304 Not Modified.
+     *
+     * @return La entrada renovada, que se sirve en lugar de la respuesta 304
+     */
+    public CachedResponse revalidated(URI uri, CachedResponse cached, HttpHeaders notModifiedHeaders) {
+        revalidated.incrementAndGet();
+        long freshUntil = freshUntil(notModifiedHeaders);
+        CachedResponse renewed = cached.withFreshUntil(freshUntil == NOT_CACHEABLE ? 0 : freshUntil);
+        entries.put(uri, renewed);
+        return renewed;
+    }
+
+    /**
+     * Marca un acierto (entrada fresca servida sin contactar al servidor).
+     */
+    public void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * @return true si la respuesta puede guardarse según su código de estado
+     */
+    public static boolean isCacheableStatus(HttpStatusCode status) {
+        return status.value() == 200;
+    }
+
+    public static boolean isNotModified(HttpStatusCode status) {
+        return status.value() == 304;
+    }
+
+    /**
+     * Calcula hasta cuándo es fresca una respuesta (epoch ms).
+     *
+     * @return NOT_CACHEABLE si no debe guardarse, o el instante de caducidad
+     *         (ahora mismo si hay que revalidar en cada uso)
+     */
+    private long freshUntil(HttpHeaders headers) {
+        long now = System.currentTimeMillis();
+        boolean hasValidator = headers.getETag() != null || headers.getFirst(HttpHeaders.LAST_MODIFIED) != null;
+        String cacheControl = headers.getCacheControl();
+        long maxAgeSeconds = -1;
+        boolean noCache = false;
+
+        if (cacheControl != null) {
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-store")) {
+                    return NOT_CACHEABLE;
+                } else if (directive.equals("no-cache")) {
+                    noCache = true;
+                } else if (directive.startsWith("max-age=")) {
+                    maxAgeSeconds = parseSeconds(directive.substring("max-age=".length()));
+                }
+            }
+        }
+
+        if ("*".equals(headers.getFirst(HttpHeaders.VARY))) {
+            return NOT_CACHEABLE;
+        }
+
+        if (!noCache) {
+            if (maxAgeSeconds >= 0) {
+                long age = parseSeconds(headers.getFirst(HttpHeaders.AGE));
+                return now + Math.max(0, maxAgeSeconds - Math.max(0, age)) * 1000;
+            }
+            long expires = headers.getExpires();
+            if (expires > 0) {
+                long date = headers.getDate() > 0 ? headers.getDate() : now;
+                return now + Math.max(0, expires - date);
+            }
+        }
+
+        // Sin frescura explícita solo merece la pena guardarla si se puede revalidar
+        return hasValidator ? now : NOT_CACHEABLE;
+    }
+
+    /**
+     * Valores en la petición de cada header nombrado en Vary (vacío si no lo traía).
+     */
+    private static Map<String, List<String>> varyValues(HttpHeaders requestHeaders, HttpHeaders responseHeaders) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (String vary : responseHeaders.getVary()) {
+            String name = vary.trim().toLowerCase(Locale.ROOT);
+            if (!name.isEmpty()) {
+                values.put(name, List.copyOf(requestHeaders.getOrEmpty(name)));
+            }
+        }
+        return Map.copyOf(values);
+    }
+
+    private static long parseSeconds(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim().replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void registerCounter(MeterRegistry meterRegistry, AtomicLong counter, String result) {
+        FunctionCounter.builder("http.client.cache.requests", counter, AtomicLong::get)
+                .tag("result", result)
+                .description("Peticiones GET resueltas por la caché HTTP del cliente")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Respuesta guardada: headers, body, validadores y los valores de Vary de la petición original.
+     */
+    public record CachedResponse(HttpHeaders headers, byte[] body, String etag, String lastModified, long freshUntil,
+                                 Map<String, List<String>> varyValues) {
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() < freshUntil;
+        }
+
+        public boolean canRevalidate() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * @return true si la petición trae los mismos valores en los headers de Vary
+         */
+        boolean matches(HttpHeaders requestHeaders) {
+            return varyValues.entrySet().stream()
+                    .allMatch(vary -> vary.getValue().equals(requestHeaders.getOrEmpty(vary.getKey())));
+        }
+
+        CachedResponse withFreshUntil(long freshUntil) {
+            return new CachedResponse(headers, body, etag, lastModified, freshUntil, varyValues);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.client.coalescing;
+
+import com.example.demo.exception.ExternalApiException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa peticiones idénticas concurrentes ("single-flight").
+ *
+ * Si llegan varias peticiones con la misma clave mientras la primera sigue en curso,
+ * solo la primera (leader) llama al servidor externo; el resto espera y recibe
+ * el mismo resultado (o el mismo error). Al terminar, la clave se libera y la
+ * siguiente petición vuelve a llamar al servidor.
+ *
+ * - WebClient: las peticiones comparten el mismo Mono (share())
+ * - RestTemplate: las peticiones esperan el CompletableFuture del leader, como mucho
+ *   http.client.coalescing.max-wait; si el leader no ha terminado fallan con un 504
+ *
+ * Métricas: http.client.coalescing.requests{result=leader|coalesced} y
+ * http.client.coalescing.ratio (fracción de peticiones que no llegaron al servidor).
+ * Con http.client.coalescing.enabled=false cada petición llama al servidor.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<String, Mono<?>> inFlightReactive = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<?>> inFlightBlocking = new ConcurrentHashMap<>();
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final boolean enabled;
+    private final Duration maxWait;
+
+    public RequestCoalescer(@Value("${http.client.coalescing.enabled:true}") boolean enabled,
+                            @Value("${http.client.coalescing.max-wait:10s}") Duration maxWait,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWait = maxWait;
+
+        FunctionCounter.builder("http.client.coalescing.requests", leaders, AtomicLong::get)
+                .tag("result", "leader")
+                .description("Peticiones a APIs externas, según si llamaron al servidor o se agruparon")
+                .register(meterRegistry);
+        FunctionCounter.builder("http.client.coalescing.requests", coalesced, AtomicLong::get)
+                .tag("result", "coalesced")
+                .description("Peticiones a APIs externas, según si llamaron al servidor o se agruparon")
+                .register(meterRegistry);
+        Gauge.builder("http.client.coalescing.ratio", this, RequestCoalescer::coalescingRatio)
+                .description("Fracción de peticiones resueltas con la respuesta de otra petición en curso")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Versión reactiva: todas las suscripciones concurrentes con la misma clave
+     * comparten una única llamada.
+     *
+     * @param key Identifica la petición (p. ej. "posts/1")
+     * @param call Crea la llamada al servidor externo (solo se invoca para el leader)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String key, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        return Mono.defer(() -> {
+            boolean[] leader = {false};
+            Mono<?> shared = inFlightReactive.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return share(k, call);
+            });
+            (leader[0] ? leaders : coalesced).incrementAndGet();
+            return (Mono<T>) shared;
+        });
+    }
+
+    /**
+     * Versión bloqueante: el primer hilo hace la llamada y el resto espera su resultado.
+     *
+     * @param key Identifica la petición (p. ej. "posts/1")
+     * @param call Llamada al servidor externo (solo se ejecuta en el hilo leader)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T coalesceBlocking(String key, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<?> existing = inFlightBlocking.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return (T) await(key, existing);
+        }
+
+        leaders.incrementAndGet();
+        try {
+            T result = call.get();
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // También Error (OOM, StackOverflowError...): si el futuro no se completa,
+            // los que esperan se quedarían bloqueados hasta max-wait
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightBlocking.remove(key, future);
+        }
+    }
+
+    private <T> Mono<T> share(String key, Supplier<Mono<T>> call) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> shared = Mono.defer(call)
+                // Liberar la clave en cuanto termina la llamada (con éxito, error o cancelación)
+                .doFinally(signal -> inFlightReactive.remove(key, self.get()))
+                .share();
+        self.set(shared);
+        return shared;
+    }
+
+    private Object await(String key, CompletableFuture<?> future) {
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Propagar la misma excepción que recibió el leader (p. ej. ExternalApiException)
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ExternalApiException(key, "sin respuesta de la petición en curso tras " + maxWait, 504);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la petición en curso de " + key, e);
+        }
+    }
+
+    private double coalescingRatio() {
+        long total = leaders.get() + coalesced.get();
+        return total == 0 ? 0 : (double) coalesced.get() / total;
+    }
+}
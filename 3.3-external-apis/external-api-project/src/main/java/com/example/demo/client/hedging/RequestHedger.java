@@ -0,0 +1,142 @@
+package com.example.demo.client.hedging;
+
+import com.example.demo.client.resilience.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Peticiones "hedged" para GET idempotentes con WebClient.
+ *
+ * Si la petición no ha respondido tras un retardo (fijo o el p95 observado de la API),
+ * se envía una segunda petición igual y se usa la primera respuesta que llegue;
+ * la otra se cancela (Reactor Netty cierra su conexión). Así una respuesta lenta
+ * ocasional no marca el p99 del endpoint.
+ *
+ * Para no duplicar la carga sobre la API, cada petición deposita max-ratio tokens
+ * en un presupuesto y cada segunda petición gasta uno: como mucho ese porcentaje
+ * de las peticiones se duplica (más una reserva inicial de BUDGET_RESERVE).
+ * Es un RetryBudget propio por API, independiente del presupuesto de reintentos de
+ * UpstreamResilience: las segundas peticiones no gastan reintentos ni al revés.
+ *
+ * Métricas: http.client.hedging.requests{upstream,result=sent|won|budget_exhausted}
+ * y http.client.hedging.latency{upstream} (latencia de la primera petición, con p95).
+ * Desactivado por defecto (http.client.hedging.enabled=false).
+ */
+@Component
+public class RequestHedger {
+
+    /** Segundas peticiones disponibles al arrancar, antes de acumular depósitos */
+    static final int BUDGET_RESERVE = 10;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration fixedDelay;
+    private final Duration minDelay;
+    private final double maxRatio;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    public RequestHedger(@Value("${http.client.hedging.enabled:false}") boolean enabled,
+                         @Value("${http.client.hedging.delay:0ms}") Duration fixedDelay,
+                         @Value("${http.client.hedging.min-delay:20ms}") Duration minDelay,
+                         @Value("${http.client.hedging.max-ratio:0.1}") double maxRatio,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.fixedDelay = fixedDelay;
+        this.minDelay = minDelay;
+        this.maxRatio = maxRatio;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Ejecuta la llamada y, si tarda más que el retardo de hedging, lanza una segunda.
+     *
+     * @param api Nombre de la API externa (agrupa latencias y presupuesto)
+     * @param call Crea la petición; se invoca una vez por cada petición enviada.
+     *             Solo para llamadas idempotentes (GET)
+     */
+    public <T> Mono<T> hedge(String api, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            Upstream upstream = upstream(api);
+            upstream.budget.deposit();
+
+            long start = System.nanoTime();
+            Mono<T> primary = Mono.defer(call)
+                    // Latencia de la primera petición, aunque pierda y se cancele (cota inferior)
+                    .doFinally(signal -> upstream.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+
+            Mono<T> hedged = Mono.delay(delay(upstream))
+                    .then(Mono.defer(() -> {
+                        if (!upstream.budget.tryWithdraw()) {
+                            upstream.budgetExhausted.increment();
+                            return Mono.<T>never(); // Sin presupuesto: decide la primera petición
+                        }
+                        upstream.sent.increment();
+                        return Mono.defer(call)
+                                .doOnNext(value -> upstream.won.increment())
+                                // Si la segunda falla, se sigue esperando a la primera
+                                .onErrorResume(error -> Mono.never());
+                    }));
+
+            // La primera señal gana (valor o error de la primera petición) y la otra se cancela
+            return Mono.firstWithSignal(primary, hedged);
+        });
+    }
+
+    /**
+     * @return Retardo antes de la segunda petición: el configurado o el p95 observado (mínimo min-delay)
+     */
+    private Duration delay(Upstream upstream) {
+        if (!fixedDelay.isZero()) {
+            return fixedDelay;
+        }
+        for (ValueAtPercentile percentile : upstream.latency.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.95) {
+                long p95 = (long) percentile.value(TimeUnit.NANOSECONDS);
+                return p95 > minDelay.toNanos() ? Duration.ofNanos(p95) : minDelay;
+            }
+        }
+        return minDelay;
+    }
+
+    private Upstream upstream(String api) {
+        return upstreams.computeIfAbsent(api, this::createUpstream);
+    }
+
+    private Upstream createUpstream(String api) {
+        Timer latency = Timer.builder("http.client.hedging.latency")
+                .tag("upstream", api)
+                .description("Latencia de la primera petición de cada GET con hedging")
+                .publishPercentiles(0.95)
+                .register(meterRegistry);
+
+        return new Upstream(latency, new RetryBudget(maxRatio, BUDGET_RESERVE),
+            counter(api, "sent"), counter(api, "won"), counter(api, "budget_exhausted"));
+    }
+
+    private Counter counter(String api, String result) {
+        return Counter.builder("http.client.hedging.requests")
+                .tag("upstream", api)
+                .tag("result", result)
+                .description("Segundas peticiones (hedging) a APIs externas")
+                .register(meterRegistry);
+    }
+
+    private record Upstream(Timer latency, RetryBudget budget, Counter sent, Counter won,
+                            Counter budgetExhausted) {
+    }
+}
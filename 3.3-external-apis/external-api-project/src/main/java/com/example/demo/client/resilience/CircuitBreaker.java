@@ -0,0 +1,181 @@
+package com.example.demo.client.resilience;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker de una API externa con ventana deslizante de las últimas N llamadas.
+ *
+ * - CLOSED: las llamadas pasan; si en la ventana la tasa de fallos (errores de conexión,
+ *   5xx o llamadas más lentas que slowCallThreshold) supera failureRateThreshold, se abre
+ * - OPEN: las llamadas fallan al instante, sin ocupar un hilo ni una conexión, durante openDuration
+ * - HALF_OPEN: se dejan pasar halfOpenCalls llamadas de prueba; si todas van bien se cierra,
+ *   si alguna falla se vuelve a abrir
+ *
+ * Las llamadas lentas cuentan como fallo: así un servidor que responde tarde (sin llegar
+ * al timeout) también abre el circuito en lugar de acumular hilos bloqueados.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallThresholdNanos;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final BiConsumer<State, State> onTransition;
+    private final LongSupplier nanoTime;
+
+    // Ventana circular: true = fallo
+    private final boolean[] window;
+    private int windowPosition;
+    private int windowCount;
+    private int windowFailures;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration slowCallThreshold, Duration openDuration, int halfOpenCalls,
+                          BiConsumer<State, State> onTransition) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, slowCallThreshold, openDuration, halfOpenCalls,
+            onTransition, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime Reloj para medir openDuration (en pruebas, uno controlable)
+     */
+    CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                   Duration slowCallThreshold, Duration openDuration, int halfOpenCalls,
+                   BiConsumer<State, State> onTransition, LongSupplier nanoTime) {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdNanos = slowCallThreshold.toNanos();
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.onTransition = onTransition;
+        this.window = new boolean[windowSize];
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Pide permiso para hacer una llamada.
+     *
+     * @return false si el circuito está abierto (la llamada debe fallar sin hacerse)
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (nanoTime.getAsLong() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0) {
+                    return false;
+                }
+                halfOpenPermits--;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Registra una llamada terminada.
+     *
+     * @param failed Si la llamada falló por causa del servidor (conexión, timeout, 5xx)
+     * @param elapsedNanos Duración de la llamada (las lentas cuentan como fallo)
+     */
+    public synchronized void record(boolean failed, long elapsedNanos) {
+        boolean failure = failed || elapsedNanos > slowCallThresholdNanos;
+
+        if (state == State.HALF_OPEN) {
+            if (failure) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                resetWindow();
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return; // Llamada iniciada antes de abrirse
+        }
+
+        if (windowCount == windowSize) {
+            if (window[windowPosition]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowPosition] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowPosition = (windowPosition + 1) % windowSize;
+
+        if (windowCount >= minimumCalls && failureRate() >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Libera el permiso de una llamada cancelada sin resultado (no cuenta ni como éxito ni como fallo).
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Porcentaje de fallos en la ventana actual (0-100)
+     */
+    public synchronized double failureRate() {
+        return windowCount == 0 ? 0 : 100.0 * windowFailures / windowCount;
+    }
+
+    private void open() {
+        openedAt = nanoTime.getAsLong();
+        transitionTo(State.OPEN);
+    }
+
+    private void resetWindow() {
+        windowPosition = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        if (next == State.HALF_OPEN) {
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        state = next;
+        if (previous != next) {
+            onTransition.accept(previous, next);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.client.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Presupuesto de reintentos de una API externa.
+ *
+ * Cada llamada nueva deposita "ratio" tokens (p. ej. 0.2) y cada reintento gasta uno,
+ * así que los reintentos nunca superan ese porcentaje del tráfico (más una reserva
+ * de "max" tokens para ráfagas). Si el servidor empieza a fallar, los reintentos
+ * no multiplican la carga que recibe: cuando se agota el presupuesto se falla directamente.
+ *
+ * RequestHedger usa el mismo mecanismo (con un presupuesto propio) para limitar
+ * las peticiones duplicadas.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long max;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, int max) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.max = max * SCALE;
+        this.balance = new AtomicLong(this.max);
+    }
+
+    /**
+     * Registra una llamada nueva (no un reintento).
+     */
+    public void deposit() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(max, current + amount));
+    }
+
+    /**
+     * @return true si queda presupuesto para un reintento (y lo gasta)
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * @return Reintentos disponibles ahora mismo
+     */
+    public double available() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.demo.client.resilience;
+
+import com.example.demo.exception.ExternalApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Capa de resiliencia para las llamadas a APIs externas (un circuit breaker y un
+ * presupuesto de reintentos por API).
+ *
+ * - Si el circuito de la API está abierto, la llamada falla al instante con 503
+ *   en lugar de esperar al timeout: se descarta carga en vez de acumular hilos bloqueados
+ * - Las llamadas idempotentes (GET) que fallan por conexión, timeout o 5xx se reintentan
+ *   con backoff exponencial y jitter, mientras quede presupuesto de reintentos
+ * - Los 4xx no son fallos del servidor: ni se reintentan ni abren el circuito
+ *
+ * Métricas: http.client.circuit.state{upstream} (0=CLOSED, 1=OPEN, 2=HALF_OPEN),
+ * http.client.circuit.transitions{upstream,from,to}, http.client.circuit.rejected{upstream},
+ * http.client.retry.attempts{upstream,result=retried|budget_exhausted} y http.client.retry.budget{upstream}.
+ * Con http.client.resilience.enabled=false las llamadas se hacen sin protección.
+ */
+@Slf4j
+@Component
+public class UpstreamResilience {
+
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoTime;
+    private final LongUnaryOperator jitter;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    @Value("${http.client.resilience.enabled:true}")
+    private boolean enabled;
+
+    @Value("${http.client.resilience.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${http.client.resilience.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${http.client.resilience.circuit-breaker.failure-rate-threshold:50}")
+    private double failureRateThreshold;
+
+    @Value("${http.client.resilience.circuit-breaker.slow-call-threshold:3s}")
+    private Duration slowCallThreshold;
+
+    @Value("${http.client.resilience.circuit-breaker.open-duration:10s}")
+    private Duration openDuration;
+
+    @Value("${http.client.resilience.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${http.client.resilience.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${http.client.resilience.retry.backoff:100ms}")
+    private Duration backoff;
+
+    @Value("${http.client.resilience.retry.max-backoff:1s}")
+    private Duration maxBackoff;
+
+    @Value("${http.client.resilience.retry.budget-ratio:0.2}")
+    private double budgetRatio;
+
+    @Value("${http.client.resilience.retry.budget-max:10}")
+    private int budgetMax;
+
+    @Autowired
+    public UpstreamResilience(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::nanoTime, ceiling -> ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * @param nanoTime Reloj de los circuitos y de la duración de las llamadas
+     * @param jitter Elige la espera de un reintento entre 0 y el techo recibido (ambos incluidos)
+     */
+    UpstreamResilience(MeterRegistry meterRegistry, LongSupplier nanoTime, LongUnaryOperator jitter) {
+        this.meterRegistry = meterRegistry;
+        this.nanoTime = nanoTime;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Ejecuta una llamada bloqueante (RestTemplate) protegida por el circuito de la API.
+     *
+     * @param api Nombre de la API externa (el mismo que en ExternalApiException)
+     * @param idempotent Si la llamada se puede reintentar sin efectos secundarios (GET)
+     */
+    public <T> T execute(String api, boolean idempotent, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        Upstream upstream = upstream(api);
+        upstream.budget.deposit();
+        for (int attempt = 1; ; attempt++) {
+            acquire(upstream);
+            long start = nanoTime.getAsLong();
+            try {
+                T result = call.get();
+                upstream.breaker.record(false, nanoTime.getAsLong() - start);
+                return result;
+            } catch (RuntimeException e) {
+                boolean serverFailure = isServerFailure(e);
+                upstream.breaker.record(serverFailure, nanoTime.getAsLong() - start);
+                if (!shouldRetry(upstream, idempotent && serverFailure, attempt)) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(backoffFor(attempt).toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Versión reactiva de {@link #execute}: cada intento se suscribe de nuevo a la llamada.
+     */
+    public <T> Mono<T> executeMono(String api, boolean idempotent, Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            Upstream upstream = upstream(api);
+            upstream.budget.deposit();
+            return attempt(upstream, idempotent, call, 1);
+        });
+    }
+
+    /**
+     * Protege una respuesta en streaming. No se reintenta (ya se pueden haber emitido elementos)
+     * y para detectar llamadas lentas se mide el tiempo hasta el primer elemento.
+     */
+    public <T> Flux<T> executeFlux(String api, Supplier<Flux<T>> call) {
+        if (!enabled) {
+            return Flux.defer(call);
+        }
+
+        return Flux.defer(() -> {
+            Upstream upstream = upstream(api);
+            acquire(upstream);
+            long start = nanoTime.getAsLong();
+            long[] firstSignal = {0};
+            AtomicBoolean recorded = new AtomicBoolean();
+            return call.get()
+                    .doOnNext(item -> {
+                        if (firstSignal[0] == 0) {
+                            firstSignal[0] = nanoTime.getAsLong() - start;
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            upstream.breaker.record(false, firstSignal[0] != 0 ? firstSignal[0] : nanoTime.getAsLong() - start);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            upstream.breaker.record(isServerFailure(error), nanoTime.getAsLong() - start);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            upstream.breaker.release();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * @return Estado del circuito de la API (CLOSED si todavía no se ha llamado)
+     */
+    public CircuitBreaker.State state(String api) {
+        Upstream upstream = upstreams.get(api);
+        return upstream != null ? upstream.breaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    private <T> Mono<T> attempt(Upstream upstream, boolean idempotent, Supplier<Mono<T>> call, int attempt) {
+        return Mono.defer(() -> {
+            acquire(upstream);
+            long start = nanoTime.getAsLong();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return call.get()
+                    .doOnSuccess(result -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            upstream.breaker.record(false, nanoTime.getAsLong() - start);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            upstream.breaker.release();
+                        }
+                    })
+                    .onErrorResume(error -> {
+                        boolean serverFailure = isServerFailure(error);
+                        if (recorded.compareAndSet(false, true)) {
+                            upstream.breaker.record(serverFailure, nanoTime.getAsLong() - start);
+                        }
+                        if (!shouldRetry(upstream, idempotent && serverFailure, attempt)) {
+                            return Mono.error(error);
+                        }
+                        return Mono.delay(backoffFor(attempt))
+                                .then(attempt(upstream, idempotent, call, attempt + 1));
+                    });
+        });
+    }
+
+    private void acquire(Upstream upstream) {
+        if (!upstream.breaker.tryAcquire()) {
+            upstream.rejected.increment();
+            throw new ExternalApiException(upstream.breaker.getName(),
+                "Circuito abierto, se rechaza la llamada sin contactar al servidor",
+                HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+    }
+
+    private boolean shouldRetry(Upstream upstream, boolean retryable, int attempt) {
+        if (!retryable || attempt >= maxAttempts) {
+            return false;
+        }
+        if (!upstream.budget.tryWithdraw()) {
+            upstream.budgetExhausted.increment();
+            return false;
+        }
+        upstream.retried.increment();
+        return true;
+    }
+
+    /**
+     * Backoff exponencial con "full jitter": un valor aleatorio entre 0 y backoff * 2^(intento-1),
+     * para que los reintentos de muchas peticiones no lleguen todos a la vez.
+     */
+    Duration backoffFor(int attempt) {
+        long ceiling = Math.min(maxBackoff.toMillis(), backoff.toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(jitter.applyAsLong(ceiling));
+    }
+
+    /**
+     * Errores de conexión, timeouts y 5xx son fallos del servidor; los 4xx no.
+     */
+    private boolean isServerFailure(Throwable error) {
+        if (error instanceof ExternalApiException ex) {
+            return ex.getStatusCode() == 0 || ex.getStatusCode() >= 500;
+        }
+        return true;
+    }
+
+    private Upstream upstream(String api) {
+        return upstreams.computeIfAbsent(api, this::createUpstream);
+    }
+
+    private Upstream createUpstream(String api) {
+        CircuitBreaker breaker = new CircuitBreaker(api, windowSize, minimumCalls, failureRateThreshold,
+            slowCallThreshold, openDuration, halfOpenCalls, (from, to) -> {
+                log.warn("Circuito de {}: {} -> {}", api, from, to);
+                meterRegistry.counter("http.client.circuit.transitions",
+                    "upstream", api, "from", from.name(), "to", to.name()).increment();
+            }, nanoTime);
+        RetryBudget budget = new RetryBudget(budgetRatio, budgetMax);
+
+        Gauge.builder("http.client.circuit.state", breaker, b -> b.getState().ordinal())
+                .tag("upstream", api)
+                .description("Estado del circuito (0=CLOSED, 1=OPEN, 2=HALF_OPEN)")
+                .register(meterRegistry);
+        Gauge.builder("http.client.circuit.failure.rate", breaker, CircuitBreaker::failureRate)
+                .tag("upstream", api)
+                .description("Porcentaje de fallos en la ventana del circuito")
+                .register(meterRegistry);
+        Gauge.builder("http.client.retry.budget", budget, RetryBudget::available)
+                .tag("upstream", api)
+                .description("Reintentos disponibles en el presupuesto")
+                .register(meterRegistry);
+
+        return new Upstream(breaker, budget,
+            Counter.builder("http.client.circuit.rejected").tag("upstream", api)
+                .description("Llamadas rechazadas con el circuito abierto").register(meterRegistry),
+            Counter.builder("http.client.retry.attempts").tag("upstream", api).tag("result", "retried")
+                .description("Reintentos de llamadas a APIs externas").register(meterRegistry),
+            Counter.builder("http.client.retry.attempts").tag("upstream", api).tag("result", "budget_exhausted")
+                .description("Reintentos de llamadas a APIs externas").register(meterRegistry));
+    }
+
+    private record Upstream(CircuitBreaker breaker, RetryBudget budget, Counter rejected,
+                            Counter retried, Counter budgetExhausted) {
+    }
+}
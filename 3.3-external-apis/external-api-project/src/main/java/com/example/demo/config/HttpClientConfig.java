@@ -1,18 +1,36 @@
 package com.example.demo.config;
 
+import com.example.demo.client.cache.CachingClientHttpRequestInterceptor;
+import com.example.demo.client.cache.CachingExchangeFilterFunction;
+import com.example.demo.client.cache.HttpResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
-import io.netty.channel.ChannelOption;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -39,6 +57,84 @@ public class HttpClientConfig {
     @Value("${http.client.max-per-route:20}")
     private int maxPerRoute;
 
+    @Value("${http.client.pool.enabled:true}")
+    private boolean poolEnabled;
+
+    @Value("${http.client.pool.acquire-timeout:2s}")
+    private Duration poolAcquireTimeout;
+
+    @Value("${http.client.pool.idle-timeout:30s}")
+    private Duration poolIdleTimeout;
+
+    @Value("${http.client.pool.time-to-live:5m}")
+    private Duration poolTimeToLive;
+
+    @Value("${http.client.pool.validate-after-inactivity:2s}")
+    private Duration poolValidateAfterInactivity;
+
+    @Value("${http.client.pool.pending-acquire-max-count:500}")
+    private int poolPendingAcquireMaxCount;
+
+    @Value("${http.client.webclient.event-loop-threads:0}")
+    private int eventLoopThreads;
+
+    @Value("${http.client.webclient.http2:false}")
+    private boolean http2;
+
+    @Value("${http.client.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    /**
+     * Pool de conexiones HTTP para RestTemplate (Apache HttpClient 5).
+     * 
+     * Reutiliza conexiones keep-alive en lugar de abrir una conexión TCP (y TLS)
+     * por cada petición, y aplica los límites http.client.max-connections
+     * (total) y http.client.max-per-route (por host).
+     * 
+     * - time-to-live: edad máxima de una conexión, aunque siga en uso
+     * - validate-after-inactivity: comprobar la conexión antes de reutilizarla si estuvo parada
+     * 
+     * El uso del pool se publica en Micrometer (httpcomponents.httpclient.pool.*).
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager restTemplateConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .setTimeToLive(TimeValue.of(poolTimeToLive))
+                        .setValidateAfterInactivity(TimeValue.of(poolValidateAfterInactivity))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "restTemplate")
+                .bindTo(meterRegistry);
+
+        return connectionManager;
+    }
+
+    /**
+     * Cliente HTTP con pool para RestTemplate.
+     * 
+     * Un hilo de fondo cierra las conexiones que llevan más de
+     * http.client.pool.idle-timeout sin usarse y las que superaron su time-to-live.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient restTemplateHttpClient(PoolingHttpClientConnectionManager restTemplateConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(restTemplateConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // Tiempo máximo esperando una conexión libre del pool
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.of(poolIdleTimeout))
+                .evictExpiredConnections()
+                .build();
+    }
+
     /**
      * Configuración de RestTemplate (bloqueante, tradicional).
      * 
@@ -52,18 +148,16 @@ public class HttpClientConfig {
      * - Menos eficiente para múltiples peticiones concurrentes
      */
     @Bean
-    public RestTemplate restTemplate() {
-        // Configurar factory con timeouts
-        // SimpleClientHttpRequestFactory es más simple y no requiere dependencias adicionales
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(connectTimeout);
-        factory.setReadTimeout(readTimeout);
-
+    public RestTemplate restTemplate(CloseableHttpClient restTemplateHttpClient, HttpResponseCache httpResponseCache) {
         // Crear RestTemplate con factory configurada
-        RestTemplate restTemplate = new RestTemplate(factory);
+        RestTemplate restTemplate = new RestTemplate(requestFactory(restTemplateHttpClient));
 
         // Agregar interceptor para logging
         List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>();
+        if (cacheEnabled) {
+            // Primero la caché: las respuestas servidas desde caché no llegan al servidor
+            interceptors.add(new CachingClientHttpRequestInterceptor(httpResponseCache));
+        }
         interceptors.add((request, body, execution) -> {
             log.info("RestTemplate Request: {} {}", request.getMethod(), request.getURI());
             long startTime = System.currentTimeMillis();
@@ -84,6 +178,23 @@ public class HttpClientConfig {
         return restTemplate;
     }
 
+    /**
+     * Factory de peticiones de RestTemplate.
+     * 
+     * Con http.client.pool.enabled=false se usa SimpleClientHttpRequestFactory
+     * (HttpURLConnection, sin pool ni límites), útil para comparar rendimiento.
+     */
+    private ClientHttpRequestFactory requestFactory(CloseableHttpClient httpClient) {
+        if (poolEnabled) {
+            return new HttpComponentsClientHttpRequestFactory(httpClient);
+        }
+
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(connectTimeout);
+        factory.setReadTimeout(readTimeout);
+        return factory;
+    }
+
     /**
      * Configuración de WebClient (reactivo, no bloqueante).
      * 
@@ -99,21 +210,74 @@ public class HttpClientConfig {
      * - Mejor para microservicios
      */
     @Bean
-    public WebClient webClient() {
-        // Configurar HttpClient de Netty con timeouts
-        HttpClient httpClient = HttpClient.create()
+    public WebClient webClient(ConnectionProvider webClientConnectionProvider,
+                               LoopResources webClientLoopResources,
+                               HttpResponseCache httpResponseCache) {
+        // Configurar HttpClient de Netty con pool propio, event loops propios y timeouts
+        HttpClient httpClient = HttpClient.create(webClientConnectionProvider)
+                .runOn(webClientLoopResources)
                 .responseTimeout(Duration.ofMillis(readTimeout))
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout);
+
+        if (http2) {
+            // HTTP/2 sobre TLS (negociado con ALPN); si el servidor no lo soporta se usa HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
         
         // Crear WebClient con ReactorClientHttpConnector
-        return WebClient.builder()
-                .clientConnector(new ReactorClientHttpConnector(httpClient))
+        WebClient.Builder builder = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+
+        if (cacheEnabled) {
+            // Primero la caché: las respuestas servidas desde caché no llegan al servidor
+            builder.filter(new CachingExchangeFilterFunction(httpResponseCache));
+        }
+
+        return builder
                 // Agregar filtro para logging
                 .filter(logRequest())
                 .filter(logResponse())
                 .build();
     }
 
+    /**
+     * Pool de conexiones con nombre para WebClient.
+     * 
+     * Sin esto, HttpClient.create() usa el pool global compartido de Reactor Netty
+     * y las peticiones de más esperan en silencio. Aquí se limita:
+     * - Conexiones por host (http.client.max-per-route, Netty crea un pool por dirección remota).
+     *   Reactor Netty no tiene un límite total entre hosts: http.client.max-connections
+     *   solo se aplica a RestTemplate
+     * - Peticiones esperando conexión (pending-acquire-max-count) y cuánto esperan (acquire-timeout):
+     *   al superarlo fallan enseguida en lugar de acumularse
+     * - Tiempo inactivo (idle-timeout) y edad máxima (time-to-live), con limpieza en segundo plano
+     * 
+     * Las métricas del pool se publican en Micrometer (reactor.netty.connection.provider.*).
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider webClientConnectionProvider() {
+        return ConnectionProvider.builder("external-apis")
+                .maxConnections(maxPerRoute)
+                .pendingAcquireMaxCount(poolPendingAcquireMaxCount)
+                .pendingAcquireTimeout(poolAcquireTimeout)
+                .maxIdleTime(poolIdleTimeout)
+                .maxLifeTime(poolTimeToLive)
+                .evictInBackground(poolIdleTimeout)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Event loops propios de WebClient (no compartidos con otros clientes de Reactor Netty).
+     * 
+     * http.client.webclient.event-loop-threads=0 usa el valor por defecto (un hilo por núcleo).
+     */
+    @Bean(destroyMethod = "dispose")
+    public LoopResources webClientLoopResources() {
+        int threads = eventLoopThreads > 0 ? eventLoopThreads : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        return LoopResources.create("webclient", threads, true);
+    }
+
     /**
      * Filtro para registrar peticiones HTTP con WebClient.
      */
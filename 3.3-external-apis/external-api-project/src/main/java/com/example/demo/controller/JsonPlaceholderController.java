@@ -1,16 +1,22 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.PostBatchResponseDTO;
 import com.example.demo.dto.PostDTO;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.exception.ExternalApiException;
 import com.example.demo.service.JsonPlaceholderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -24,6 +30,7 @@ import java.util.List;
 public class JsonPlaceholderController {
 
     private final JsonPlaceholderService jsonPlaceholderService;
+    private final ObjectMapper objectMapper;
 
     // ========== ENDPOINTS CON RESTTEMPLATE ==========
 
@@ -49,6 +56,32 @@ public class JsonPlaceholderController {
         return ResponseEntity.ok(posts);
     }
 
+    /**
+     * GET /api/jsonplaceholder/resttemplate/posts/stream
+     * 
+     * Obtiene todos los posts usando RestTemplate y los devuelve como NDJSON
+     * (un post por línea) a medida que se leen, sin cargar la lista completa.
+     */
+    @GetMapping(value = "/resttemplate/posts/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPostsRestTemplate() {
+        StreamingResponseBody body = out -> {
+            long[] written = {0};
+            jsonPlaceholderService.streamAllPostsRestTemplate(post -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(post));
+                    out.write('\n');
+                    // Enviar pronto el primer post y después en bloques
+                    if (written[0]++ % 100 == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * POST /api/jsonplaceholder/resttemplate/posts
      * 
@@ -105,6 +138,21 @@ public class JsonPlaceholderController {
                     Flux.error(ex)); // Propagar la excepción para que GlobalExceptionHandler la maneje
     }
 
+    /**
+     * GET /api/jsonplaceholder/webclient/posts/stream
+     * 
+     * Obtiene todos los posts usando WebClient y los envía según llegan del servidor externo,
+     * como Server-Sent Events (por defecto) o como NDJSON (Accept: application/x-ndjson).
+     * 
+     * A diferencia de /webclient/posts (application/json), Spring no agrupa el Flux
+     * en un array antes de escribirlo: memoria constante y primer byte inmediato.
+     */
+    @GetMapping(value = "/webclient/posts/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<PostDTO> streamAllPostsWebClient() {
+        return jsonPlaceholderService.streamAllPostsWebClient();
+    }
+
     /**
      * POST /api/jsonplaceholder/webclient/posts
      * 
@@ -135,15 +183,18 @@ public class JsonPlaceholderController {
     }
 
     /**
-     * GET /api/jsonplaceholder/webclient/posts/batch?ids=1,2,3
+     * GET /api/jsonplaceholder/webclient/posts/batch?ids=1,2,3&ordered=true
      * 
      * Ejemplo avanzado: Obtiene múltiples posts en paralelo usando WebClient.
      * 
      * Esto demuestra la ventaja de WebClient: puede hacer múltiples peticiones
-     * en paralelo sin bloquear hilos.
+     * en paralelo sin bloquear hilos. La concurrencia está limitada y la respuesta
+     * indica qué ids fallaron.
      */
     @GetMapping("/webclient/posts/batch")
-    public Flux<PostDTO> getMultiplePostsWebClient(@RequestParam List<Long> ids) {
-        return jsonPlaceholderService.getMultiplePostsWebClient(ids);
+    public Mono<PostBatchResponseDTO> getMultiplePostsWebClient(
+            @RequestParam List<Long> ids,
+            @RequestParam(defaultValue = "false") boolean ordered) {
+        return jsonPlaceholderService.getMultiplePostsWebClient(ids, ordered);
     }
 }
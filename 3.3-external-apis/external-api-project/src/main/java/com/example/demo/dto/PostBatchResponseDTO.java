@@ -0,0 +1,44 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de obtener varios posts en una sola petición.
+ * 
+ * Ejemplo:
+ * {
+ *   "requested": 3,
+ *   "posts": [ { "id": 1, ... }, { "id": 2, ... } ],
+ *   "failures": [ { "id": 999, "reason": "Error al consumir API 'JSONPlaceholder': ... (Status: 404)" } ],
+ *   "deadlineExceeded": false
+ * }
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostBatchResponseDTO {
+
+    /** Número de ids distintos solicitados */
+    private int requested;
+
+    /** Posts obtenidos (en el orden de los ids si se pidió ordered=true) */
+    private List<PostDTO> posts;
+
+    /** Ids que no se pudieron obtener y el motivo */
+    private List<Failure> failures;
+
+    /** true si se agotó el tiempo del lote antes de obtener todos los posts */
+    private boolean deadlineExceeded;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+        private Long id;
+        private String reason;
+    }
+}
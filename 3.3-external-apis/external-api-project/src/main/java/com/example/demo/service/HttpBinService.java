@@ -1,5 +1,7 @@
 package com.example.demo.service;
 
+import com.example.demo.client.hedging.RequestHedger;
+import com.example.demo.client.resilience.UpstreamResilience;
 import com.example.demo.dto.HttpBinResponseDTO;
 import com.example.demo.exception.ExternalApiException;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +27,9 @@ import java.util.Map;
  * - Simular delays y errores
  * 
  * https://httpbin.org
+ * 
+ * Las llamadas pasan por UpstreamResilience (circuit breaker y reintentos de los GET)
+ * y los GET con WebClient pueden usar hedging (RequestHedger, opcional).
  */
 @Slf4j
 @Service
@@ -33,6 +38,8 @@ public class HttpBinService {
 
     private final RestTemplate restTemplate;
     private final WebClient webClient;
+    private final UpstreamResilience resilience;
+    private final RequestHedger hedger;
 
     @Value("${external.apis.httpbin.base-url}")
     private String baseUrl;
@@ -41,6 +48,10 @@ public class HttpBinService {
      * Ejemplo con RestTemplate: GET request simple.
      */
     public HttpBinResponseDTO getRequestRestTemplate() {
+        return resilience.execute("HttpBin", true, this::doGetRequestRestTemplate);
+    }
+
+    private HttpBinResponseDTO doGetRequestRestTemplate() {
         try {
             String url = baseUrl + "/get";
             log.info("Haciendo GET request a httpbin con RestTemplate");
@@ -66,6 +77,10 @@ public class HttpBinService {
      * Ejemplo con RestTemplate: POST request con body JSON.
      */
     public HttpBinResponseDTO postRequestRestTemplate(Map<String, Object> data) {
+        return resilience.execute("HttpBin", false, () -> doPostRequestRestTemplate(data));
+    }
+
+    private HttpBinResponseDTO doPostRequestRestTemplate(Map<String, Object> data) {
         try {
             String url = baseUrl + "/post";
             log.info("Haciendo POST request a httpbin con RestTemplate");
@@ -93,16 +108,16 @@ public class HttpBinService {
     public Mono<HttpBinResponseDTO> getRequestWebClient() {
         log.info("Haciendo GET request a httpbin con WebClient");
         
-        return webClient
-                .get()
-                .uri(baseUrl + "/get")
-                .retrieve()
-                .bodyToMono(HttpBinResponseDTO.class)
+        return resilience.executeMono("HttpBin", true, () -> hedger.hedge("HttpBin", () -> webClient
+                        .get()
+                        .uri(baseUrl + "/get")
+                        .retrieve()
+                        .bodyToMono(HttpBinResponseDTO.class))
                 .doOnSuccess(response -> 
                     log.info("GET request exitoso. URL recibida: {}", response.getUrl()))
                 .doOnError(error -> log.error("Error al hacer GET request: {}", error.getMessage()))
                 .onErrorMap(ex -> new ExternalApiException("HttpBin", 
-                    "Error al hacer GET request", 0));
+                    "Error al hacer GET request", 0)));
     }
 
     /**
@@ -111,7 +126,7 @@ public class HttpBinService {
     public Mono<HttpBinResponseDTO> postRequestWebClient(Map<String, Object> data) {
         log.info("Haciendo POST request a httpbin con WebClient");
         
-        return webClient
+        return resilience.executeMono("HttpBin", false, () -> webClient
                 .post()
                 .uri(baseUrl + "/post")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -121,7 +136,7 @@ public class HttpBinService {
                 .doOnSuccess(response -> log.info("POST request exitoso"))
                 .doOnError(error -> log.error("Error al hacer POST request: {}", error.getMessage()))
                 .onErrorMap(ex -> new ExternalApiException("HttpBin", 
-                    "Error al hacer POST request", 0));
+                    "Error al hacer POST request", 0)));
     }
 
     /**
@@ -130,20 +145,19 @@ public class HttpBinService {
     public Mono<HttpBinResponseDTO> getRequestWithParamsWebClient(String param1, String param2) {
         log.info("Haciendo GET request con parámetros a httpbin con WebClient");
         
-        return webClient
-                .get()
-                .uri(uriBuilder -> uriBuilder
-                    .path("/get")
-                    .queryParam("param1", param1)
-                    .queryParam("param2", param2)
-                    .build())
-                .retrieve()
-                .bodyToMono(HttpBinResponseDTO.class)
+        return resilience.executeMono("HttpBin", true, () -> hedger.hedge("HttpBin", () -> webClient
+                        .get()
+                        .uri(baseUrl + "/get", uriBuilder -> uriBuilder
+                            .queryParam("param1", param1)
+                            .queryParam("param2", param2)
+                            .build())
+                        .retrieve()
+                        .bodyToMono(HttpBinResponseDTO.class))
                 .doOnSuccess(response -> 
                     log.info("GET request con parámetros exitoso"))
                 .doOnError(error -> log.error("Error al hacer GET request con parámetros: {}", error.getMessage()))
                 .onErrorMap(ex -> new ExternalApiException("HttpBin", 
-                    "Error al hacer GET request con parámetros", 0));
+                    "Error al hacer GET request con parámetros", 0)));
     }
 
     /**
@@ -152,19 +166,19 @@ public class HttpBinService {
     public Mono<HttpBinResponseDTO> getRequestWithHeadersWebClient(String customHeader) {
         log.info("Haciendo GET request con headers personalizados a httpbin con WebClient");
         
-        return webClient
-                .get()
-                .uri(baseUrl + "/get")
-                .header("X-Custom-Header", customHeader)
-                .header("X-Request-ID", java.util.UUID.randomUUID().toString())
-                .retrieve()
-                .bodyToMono(HttpBinResponseDTO.class)
+        return resilience.executeMono("HttpBin", true, () -> hedger.hedge("HttpBin", () -> webClient
+                        .get()
+                        .uri(baseUrl + "/get")
+                        .header("X-Custom-Header", customHeader)
+                        .header("X-Request-ID", java.util.UUID.randomUUID().toString())
+                        .retrieve()
+                        .bodyToMono(HttpBinResponseDTO.class))
                 .doOnSuccess(response -> {
                     log.info("GET request con headers exitoso");
                     log.debug("Headers recibidos: {}", response.getHeaders());
                 })
                 .doOnError(error -> log.error("Error al hacer GET request con headers: {}", error.getMessage()))
                 .onErrorMap(ex -> new ExternalApiException("HttpBin", 
-                    "Error al hacer GET request con headers", 0));
+                    "Error al hacer GET request con headers", 0)));
     }
 }
@@ -1,27 +1,44 @@
 package com.example.demo.service;
 
+import com.example.demo.client.coalescing.RequestCoalescer;
+import com.example.demo.client.hedging.RequestHedger;
+import com.example.demo.client.resilience.UpstreamResilience;
+import com.example.demo.dto.PostBatchResponseDTO;
 import com.example.demo.dto.PostDTO;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.exception.ExternalApiException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Servicio de ejemplo para consumir JSONPlaceholder API.
@@ -30,6 +47,13 @@ import java.util.List;
  * https://jsonplaceholder.typicode.com
  * 
  * Este servicio muestra ejemplos usando tanto RestTemplate como WebClient.
+ * 
+ * Las lecturas (posts y usuarios) pasan por RequestCoalescer: si llegan varias
+ * peticiones iguales a la vez, solo una llama a JSONPlaceholder.
+ * 
+ * Todas las llamadas pasan por UpstreamResilience: si JSONPlaceholder falla o va lento
+ * se abre el circuito y se responde 503 al instante; las lecturas se reintentan con backoff.
+ * Las lecturas con WebClient pueden además usar hedging (RequestHedger, opcional).
  */
 @Slf4j
 @Service
@@ -38,10 +62,23 @@ public class JsonPlaceholderService {
 
     private final RestTemplate restTemplate;
     private final WebClient webClient;
+    private final RequestCoalescer coalescer;
+    private final UpstreamResilience resilience;
+    private final RequestHedger hedger;
+    private final ObjectMapper objectMapper;
 
     @Value("${external.apis.jsonplaceholder.base-url}")
     private String baseUrl;
 
+    @Value("${external.apis.jsonplaceholder.batch.concurrency:16}")
+    private int batchConcurrency;
+
+    @Value("${external.apis.jsonplaceholder.batch.deadline:5s}")
+    private Duration batchDeadline;
+
+    @Value("${external.apis.jsonplaceholder.batch.max-ids:1000}")
+    private int batchMaxIds;
+
     // ========== EJEMPLOS CON RESTTEMPLATE (BLOQUEANTE) ==========
 
     /**
@@ -50,6 +87,11 @@ public class JsonPlaceholderService {
      * RestTemplate es simple y directo, pero bloquea el hilo durante la petición.
      */
     public PostDTO getPostByIdRestTemplate(Long id) {
+        return coalescer.coalesceBlocking("posts/" + id,
+            () -> resilience.execute("JSONPlaceholder", true, () -> fetchPostByIdRestTemplate(id)));
+    }
+
+    private PostDTO fetchPostByIdRestTemplate(Long id) {
         try {
             String url = baseUrl + "/posts/" + id;
             log.info("Obteniendo post {} con RestTemplate", id);
@@ -83,6 +125,11 @@ public class JsonPlaceholderService {
      * Obtiene todos los posts usando RestTemplate.
      */
     public List<PostDTO> getAllPostsRestTemplate() {
+        return coalescer.coalesceBlocking("posts",
+            () -> resilience.execute("JSONPlaceholder", true, this::fetchAllPostsRestTemplate));
+    }
+
+    private List<PostDTO> fetchAllPostsRestTemplate() {
         try {
             String url = baseUrl + "/posts";
             log.info("Obteniendo todos los posts con RestTemplate");
@@ -113,10 +160,69 @@ public class JsonPlaceholderService {
         }
     }
 
+    /**
+     * Obtiene todos los posts usando RestTemplate sin cargarlos en una lista.
+     * 
+     * Lee la respuesta con el parser en streaming de Jackson y entrega cada post
+     * al consumer en cuanto se ha leído, así la memoria no depende del tamaño
+     * de la colección. La respuesta no pasa por la caché (Cache-Control: no-store).
+     * 
+     * @param consumer Recibe cada post (p. ej. para escribirlo en la respuesta)
+     * @return Número de posts leídos
+     */
+    public long streamAllPostsRestTemplate(Consumer<PostDTO> consumer) {
+        // Sin reintentos: el consumer puede haber recibido ya parte de los posts
+        return resilience.execute("JSONPlaceholder", false, () -> fetchAllPostsStreaming(consumer));
+    }
+
+    private long fetchAllPostsStreaming(Consumer<PostDTO> consumer) {
+        try {
+            String url = baseUrl + "/posts";
+            log.info("Obteniendo todos los posts en streaming con RestTemplate");
+
+            Long count = restTemplate.execute(url, HttpMethod.GET,
+                request -> {
+                    request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                    request.getHeaders().setCacheControl(CacheControl.noStore());
+                },
+                response -> {
+                    long read = 0;
+                    try (JsonParser parser = objectMapper.createParser(response.getBody())) {
+                        if (parser.nextToken() != JsonToken.START_ARRAY) {
+                            throw new ExternalApiException("JSONPlaceholder",
+                                "Se esperaba un array de posts", HttpStatus.BAD_GATEWAY.value());
+                        }
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            consumer.accept(objectMapper.readValue(parser, PostDTO.class));
+                            read++;
+                        }
+                    }
+                    return read;
+                });
+
+            log.info("Se obtuvieron {} posts en streaming", count);
+            return count != null ? count : 0;
+
+        } catch (HttpClientErrorException | HttpServerErrorException e) {
+            log.error("Error HTTP al obtener posts: {}", e.getMessage());
+            throw new ExternalApiException("JSONPlaceholder", 
+                "Error al obtener posts", e.getStatusCode().value());
+        } catch (ResourceAccessException e) {
+            log.error("Error de conexión al obtener posts: {}", e.getMessage());
+            throw new ExternalApiException("JSONPlaceholder", 
+                "Error de conexión o timeout", 0);
+        }
+    }
+
     /**
      * Crea un nuevo post usando RestTemplate.
      */
     public PostDTO createPostRestTemplate(PostDTO post) {
+        // POST no es idempotente: sin reintentos, solo el circuito
+        return resilience.execute("JSONPlaceholder", false, () -> doCreatePostRestTemplate(post));
+    }
+
+    private PostDTO doCreatePostRestTemplate(PostDTO post) {
         try {
             String url = baseUrl + "/posts";
             log.info("Creando post con RestTemplate: {}", post.getTitle());
@@ -146,6 +252,11 @@ public class JsonPlaceholderService {
      * Obtiene un usuario por ID usando RestTemplate.
      */
     public UserDTO getUserByIdRestTemplate(Long id) {
+        return coalescer.coalesceBlocking("users/" + id,
+            () -> resilience.execute("JSONPlaceholder", true, () -> fetchUserByIdRestTemplate(id)));
+    }
+
+    private UserDTO fetchUserByIdRestTemplate(Long id) {
         try {
             String url = baseUrl + "/users/" + id;
             log.info("Obteniendo usuario {} con RestTemplate", id);
@@ -182,11 +293,11 @@ public class JsonPlaceholderService {
     public Mono<PostDTO> getPostByIdWebClient(Long id) {
         log.info("Obteniendo post {} con WebClient", id);
         
-        return webClient
-                .get()
-                .uri(baseUrl + "/posts/{id}", id)
-                .retrieve()
-                .bodyToMono(PostDTO.class)
+        return coalescer.coalesce("posts/" + id, () -> resilience.executeMono("JSONPlaceholder", true, () -> hedger.hedge("JSONPlaceholder", () -> webClient
+                        .get()
+                        .uri(baseUrl + "/posts/{id}", id)
+                        .retrieve()
+                        .bodyToMono(PostDTO.class))
                 .doOnSuccess(post -> log.info("Post obtenido exitosamente: {}", post.getTitle()))
                 .doOnError(error -> log.error("Error al obtener post {}: {}", id, error.getMessage()))
                 .onErrorMap(WebClientResponseException.class, ex -> 
@@ -195,7 +306,7 @@ public class JsonPlaceholderService {
                         ex.getStatusCode().value()))
                 .onErrorMap(WebClientException.class, ex -> 
                     new ExternalApiException("JSONPlaceholder", 
-                        "Error de conexión o timeout", 0));
+                        "Error de conexión o timeout", 0))));
     }
 
     /**
@@ -206,7 +317,7 @@ public class JsonPlaceholderService {
     public Flux<PostDTO> getAllPostsWebClient() {
         log.info("Obteniendo todos los posts con WebClient");
         
-        return webClient
+        return resilience.executeFlux("JSONPlaceholder", () -> webClient
                 .get()
                 .uri(baseUrl + "/posts")
                 .retrieve()
@@ -220,7 +331,36 @@ public class JsonPlaceholderService {
                         ex.getStatusCode().value()))
                 .onErrorMap(WebClientException.class, ex -> 
                     new ExternalApiException("JSONPlaceholder", 
-                        "Error de conexión o timeout", 0));
+                        "Error de conexión o timeout", 0)));
+    }
+
+    /**
+     * Obtiene todos los posts usando WebClient, emitiendo cada post en cuanto llega.
+     * 
+     * bodyToFlux decodifica el array JSON con el parser no bloqueante de Jackson,
+     * así que cada elemento se emite sin esperar al resto. Se usa junto a un endpoint
+     * application/x-ndjson o text/event-stream para que tampoco se agrupe al responder.
+     * La respuesta no pasa por la caché (Cache-Control: no-store) para no acumularla en memoria.
+     */
+    public Flux<PostDTO> streamAllPostsWebClient() {
+        log.info("Obteniendo todos los posts en streaming con WebClient");
+
+        return resilience.executeFlux("JSONPlaceholder", () -> webClient
+                .get()
+                .uri(baseUrl + "/posts")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue())
+                .retrieve()
+                .bodyToFlux(PostDTO.class)
+                .doOnComplete(() -> log.info("Streaming de posts completado"))
+                .doOnError(error -> log.error("Error al obtener posts: {}", error.getMessage()))
+                .onErrorMap(WebClientResponseException.class, ex -> 
+                    new ExternalApiException("JSONPlaceholder", 
+                        "Error al obtener posts: " + ex.getMessage(), 
+                        ex.getStatusCode().value()))
+                .onErrorMap(WebClientException.class, ex -> 
+                    new ExternalApiException("JSONPlaceholder", 
+                        "Error de conexión o timeout", 0)));
     }
 
     /**
@@ -229,7 +369,7 @@ public class JsonPlaceholderService {
     public Mono<PostDTO> createPostWebClient(PostDTO post) {
         log.info("Creando post con WebClient: {}", post.getTitle());
         
-        return webClient
+        return resilience.executeMono("JSONPlaceholder", false, () -> webClient
                 .post()
                 .uri(baseUrl + "/posts")
                 .bodyValue(post)
@@ -244,7 +384,7 @@ public class JsonPlaceholderService {
                         ex.getStatusCode().value()))
                 .onErrorMap(WebClientException.class, ex -> 
                     new ExternalApiException("JSONPlaceholder", 
-                        "Error de conexión o timeout", 0));
+                        "Error de conexión o timeout", 0)));
     }
 
     /**
@@ -253,11 +393,11 @@ public class JsonPlaceholderService {
     public Mono<UserDTO> getUserByIdWebClient(Long id) {
         log.info("Obteniendo usuario {} con WebClient", id);
         
-        return webClient
-                .get()
-                .uri(baseUrl + "/users/{id}", id)
-                .retrieve()
-                .bodyToMono(UserDTO.class)
+        return coalescer.coalesce("users/" + id, () -> resilience.executeMono("JSONPlaceholder", true, () -> hedger.hedge("JSONPlaceholder", () -> webClient
+                        .get()
+                        .uri(baseUrl + "/users/{id}", id)
+                        .retrieve()
+                        .bodyToMono(UserDTO.class))
                 .doOnSuccess(user -> log.info("Usuario obtenido exitosamente: {}", user.getName()))
                 .doOnError(error -> log.error("Error al obtener usuario {}: {}", id, error.getMessage()))
                 .onErrorMap(WebClientResponseException.class, ex -> 
@@ -266,30 +406,73 @@ public class JsonPlaceholderService {
                         ex.getStatusCode().value()))
                 .onErrorMap(WebClientException.class, ex -> 
                     new ExternalApiException("JSONPlaceholder", 
-                        "Error de conexión o timeout", 0));
+                        "Error de conexión o timeout", 0))));
     }
 
     /**
      * Ejemplo avanzado: Obtiene múltiples posts de forma paralela usando WebClient.
      * 
      * Esto muestra la ventaja de WebClient: puede hacer múltiples peticiones
-     * en paralelo sin bloquear hilos.
+     * en paralelo sin bloquear hilos. Para que sea seguro con listas grandes:
+     * - Se eliminan los ids repetidos y se rechazan lotes de más de batch.max-ids
+     * - Como mucho batch.concurrency peticiones a la vez (no una por id)
+     * - Con ordered=true se usa flatMapSequential: los posts salen en el orden de los ids
+     * - El lote entero tiene un tiempo máximo (batch.deadline); lo que no llegó a tiempo
+     *   se devuelve como fallido en lugar de esperar
+     * - Los ids que fallan se listan en la respuesta en lugar de descartarse en silencio
      */
-    public Flux<PostDTO> getMultiplePostsWebClient(List<Long> ids) {
-        log.info("Obteniendo {} posts en paralelo con WebClient", ids.size());
-        
-        return Flux.fromIterable(ids)
-                .flatMap(id -> 
-                    webClient
-                        .get()
-                        .uri(baseUrl + "/posts/{id}", id)
-                        .retrieve()
-                        .bodyToMono(PostDTO.class)
-                        .onErrorResume(error -> {
-                            log.warn("No se pudo obtener post {}: {}", id, error.getMessage());
-                            return Mono.empty(); // Continuar con otros posts aunque uno falle
-                        })
-                )
-                .doOnComplete(() -> log.info("Proceso de obtención de posts completado"));
+    public Mono<PostBatchResponseDTO> getMultiplePostsWebClient(List<Long> ids, boolean ordered) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > batchMaxIds) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Se pueden pedir como mucho " + batchMaxIds + " posts por lote"));
+        }
+
+        log.info("Obteniendo {} posts en paralelo con WebClient (concurrencia {}, ordenado: {})",
+            uniqueIds.size(), batchConcurrency, ordered);
+
+        Function<Long, Mono<BatchItem>> fetch = id -> getPostByIdWebClient(id)
+                .map(post -> new BatchItem(id, post, null))
+                .defaultIfEmpty(new BatchItem(id, null, "Respuesta vacía"))
+                .onErrorResume(error -> {
+                    log.warn("No se pudo obtener post {}: {}", id, error.getMessage());
+                    return Mono.just(new BatchItem(id, null, error.getMessage())); // Continuar con otros posts aunque uno falle
+                });
+
+        Flux<BatchItem> items = ordered
+                ? Flux.fromIterable(uniqueIds).flatMapSequential(fetch, batchConcurrency)
+                : Flux.fromIterable(uniqueIds).flatMap(fetch, batchConcurrency);
+
+        return items
+                .take(batchDeadline) // Al cumplirse el plazo se cancelan las peticiones pendientes
+                .collectList()
+                .map(completed -> toBatchResponse(uniqueIds, completed))
+                .doOnSuccess(response -> log.info("Lote de posts completado: {} obtenidos, {} fallidos",
+                    response.getPosts().size(), response.getFailures().size()));
+    }
+
+    private PostBatchResponseDTO toBatchResponse(Set<Long> requestedIds, List<BatchItem> completed) {
+        List<PostDTO> posts = new ArrayList<>(completed.size());
+        List<PostBatchResponseDTO.Failure> failures = new ArrayList<>();
+        Set<Long> pending = new LinkedHashSet<>(requestedIds);
+
+        for (BatchItem item : completed) {
+            pending.remove(item.id());
+            if (item.post() != null) {
+                posts.add(item.post());
+            } else {
+                failures.add(new PostBatchResponseDTO.Failure(item.id(), item.error()));
+            }
+        }
+
+        // Lo que sigue pendiente no terminó antes del plazo del lote
+        for (Long id : pending) {
+            failures.add(new PostBatchResponseDTO.Failure(id, "Tiempo del lote agotado (" + batchDeadline + ")"));
+        }
+
+        return new PostBatchResponseDTO(requestedIds.size(), posts, failures, !pending.isEmpty());
+    }
+
+    private record BatchItem(Long id, PostDTO post, String error) {
     }
 }
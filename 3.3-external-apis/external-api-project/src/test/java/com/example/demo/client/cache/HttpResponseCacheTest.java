@@ -0,0 +1,96 @@
+package com.example.demo.client.cache;
+
+import com.example.demo.client.cache.HttpResponseCache.CachedResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Claves de HttpResponseCache: variantes según Vary y peticiones con Authorization.
+ */
+class HttpResponseCacheTest {
+
+    private static final URI URI_POST = URI.create("https://jsonplaceholder.typicode.com/posts/1");
+
+    private final HttpResponseCache cache = new HttpResponseCache(DataSize.ofMegabytes(1), new SimpleMeterRegistry());
+
+    @Test
+    void freshResponseIsServedToEquivalentRequest() {
+        assertThat(cache.store(URI_POST, new HttpHeaders(), cacheable(), body("post"))).isTrue();
+
+        CachedResponse cached = cache.get(URI_POST, new HttpHeaders());
+        assertThat(cached).isNotNull();
+        assertThat(cached.isFresh()).isTrue();
+        assertThat(new String(cached.body(), StandardCharsets.UTF_8)).isEqualTo("post");
+    }
+
+    @Test
+    void varyHeadersSelectTheVariant() {
+        HttpHeaders response = cacheable();
+        response.setVary(List.of("Accept-Language", "Accept"));
+        cache.store(URI_POST, request("es", "application/json"), response, body("hola"));
+
+        assertThat(cache.get(URI_POST, request("es", "application/json"))).isNotNull();
+        assertThat(cache.get(URI_POST, request("en", "application/json"))).isNull();
+        assertThat(cache.get(URI_POST, request("es", "application/xml"))).isNull();
+        // Una petición sin el header no coincide con una variante que sí lo traía
+        assertThat(cache.get(URI_POST, new HttpHeaders())).isNull();
+
+        // La nueva variante sustituye a la anterior
+        cache.store(URI_POST, request("en", "application/json"), response, body("hello"));
+        assertThat(cache.get(URI_POST, request("en", "application/json")).body())
+                .isEqualTo(body("hello"));
+        assertThat(cache.get(URI_POST, request("es", "application/json"))).isNull();
+    }
+
+    @Test
+    void varyStarIsNotStored() {
+        HttpHeaders response = cacheable();
+        response.set(HttpHeaders.VARY, "*");
+
+        assertThat(cache.isCacheable(response)).isFalse();
+        assertThat(cache.store(URI_POST, new HttpHeaders(), response, body("post"))).isFalse();
+        assertThat(cache.get(URI_POST, new HttpHeaders())).isNull();
+    }
+
+    @Test
+    void requestsWithAuthorizationBypassTheCache() {
+        HttpHeaders authorized = new HttpHeaders();
+        authorized.setBearerAuth("token");
+
+        assertThat(HttpResponseCache.isBypassed(authorized)).isTrue();
+        assertThat(HttpResponseCache.isBypassed(new HttpHeaders())).isFalse();
+    }
+
+    @Test
+    void noStoreRequestsBypassTheCache() {
+        HttpHeaders noStore = new HttpHeaders();
+        noStore.setCacheControl("no-store");
+
+        assertThat(HttpResponseCache.isBypassed(noStore)).isTrue();
+    }
+
+    private static HttpHeaders cacheable() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl("max-age=60");
+        return headers;
+    }
+
+    private static HttpHeaders request(String language, String accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_LANGUAGE, language);
+        headers.set(HttpHeaders.ACCEPT, accept);
+        return headers;
+    }
+
+    private static byte[] body(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.demo.client.coalescing;
+
+import com.example.demo.exception.ExternalApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Single-flight: una llamada al servidor por clave, el mismo resultado o error para
+ * todos los que esperan y la clave liberada al terminar.
+ *
+ * La respuesta del servidor la controla la prueba (Sinks / latch), así que todas
+ * las peticiones están en vuelo a la vez sin depender de tiempos.
+ */
+class RequestCoalescerTest {
+
+    private static final int CALLERS = 16;
+    private static final Duration MAX_WAIT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(true, MAX_WAIT, registry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentSubscribersShareOneUpstreamCall() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+
+        List<AtomicReference<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            AtomicReference<String> result = new AtomicReference<>();
+            coalescer.coalesce("posts/1", () -> {
+                upstreamCalls.incrementAndGet();
+                return response.asMono();
+            }).subscribe(result::set);
+            results.add(result);
+        }
+
+        assertThat(upstreamCalls).hasValue(1);
+        response.tryEmitValue("post 1");
+
+        assertThat(results).allSatisfy(result -> assertThat(result).hasValue("post 1"));
+        assertThat(requests("leader")).isEqualTo(1);
+        assertThat(requests("coalesced")).isEqualTo(CALLERS - 1);
+        assertThat(registry.get("http.client.coalescing.ratio").gauge().value())
+                .isEqualTo((double) (CALLERS - 1) / CALLERS);
+    }
+
+    @Test
+    void differentKeysAreNotCoalesced() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        coalescer.coalesce("posts/1", () -> Mono.fromCallable(upstreamCalls::incrementAndGet)).block();
+        coalescer.coalesce("posts/2", () -> Mono.fromCallable(upstreamCalls::incrementAndGet)).block();
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void errorReachesEverySubscriberAndReleasesKey() {
+        Sinks.One<String> response = Sinks.one();
+        List<AtomicReference<Throwable>> errors = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            coalescer.coalesce("posts/1", response::asMono).subscribe(value -> { }, error::set);
+            errors.add(error);
+        }
+
+        IllegalStateException failure = new IllegalStateException("503");
+        response.tryEmitError(failure);
+
+        assertThat(errors).allSatisfy(error -> assertThat(error).hasValue(failure));
+        assertNextCallReachesUpstream();
+    }
+
+    @Test
+    void completionReleasesKey() {
+        Sinks.One<String> response = Sinks.one();
+        Mono<String> first = coalescer.coalesce("posts/1", response::asMono);
+        first.subscribe();
+        response.tryEmitValue("post 1");
+
+        assertNextCallReachesUpstream();
+    }
+
+    @Test
+    void cancellingEverySubscriberCancelsUpstreamAndReleasesKey() {
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        Sinks.One<String> response = Sinks.one();
+        List<Disposable> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            subscriptions.add(coalescer.coalesce("posts/1",
+                    () -> response.asMono().doOnCancel(() -> upstreamCancelled.set(true))).subscribe());
+        }
+
+        subscriptions.get(0).dispose();
+        subscriptions.get(1).dispose();
+        // Mientras quede alguien esperando, la llamada sigue en curso
+        assertThat(upstreamCancelled).isFalse();
+
+        subscriptions.get(2).dispose();
+        assertThat(upstreamCancelled).isTrue();
+        assertNextCallReachesUpstream();
+    }
+
+    @Test
+    void blockingCallersShareOneUpstreamCall() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch respond = new CountDownLatch(1);
+
+        List<Future<String>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(executor.submit(() -> coalescer.coalesceBlocking("posts/1", () -> {
+                upstreamCalls.incrementAndGet();
+                awaitQuietly(respond);
+                return "post 1";
+            })));
+        }
+
+        // Todos en vuelo: el leader llamando y el resto esperando su resultado
+        awaitCoalesced(CALLERS - 1);
+        respond.countDown();
+
+        for (Future<String> caller : callers) {
+            assertThat(caller.get(5, TimeUnit.SECONDS)).isEqualTo("post 1");
+        }
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(requests("leader")).isEqualTo(1);
+    }
+
+    @Test
+    void blockingErrorReachesEveryCallerAndReleasesKey() throws Exception {
+        CountDownLatch respond = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("503");
+
+        List<Future<String>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(executor.submit(() -> coalescer.<String>coalesceBlocking("posts/1", () -> {
+                awaitQuietly(respond);
+                throw failure;
+            })));
+        }
+        awaitCoalesced(CALLERS - 1);
+        respond.countDown();
+
+        for (Future<String> caller : callers) {
+            assertThatThrownBy(() -> caller.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+        }
+
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        assertThat(coalescer.coalesceBlocking("posts/1", upstreamCalls::incrementAndGet)).isEqualTo(1);
+    }
+
+    @Test
+    void blockingErrorThrownByLeaderReachesEveryCaller() throws Exception {
+        CountDownLatch respond = new CountDownLatch(1);
+        AssertionError failure = new AssertionError("leader roto");
+
+        List<Future<String>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(executor.submit(() -> coalescer.<String>coalesceBlocking("posts/1", () -> {
+                awaitQuietly(respond);
+                throw failure;
+            })));
+        }
+        awaitCoalesced(CALLERS - 1);
+        respond.countDown();
+
+        // Un Error del leader no deja a nadie esperando: todos lo reciben enseguida
+        for (Future<String> caller : callers) {
+            assertThatThrownBy(() -> caller.get(1, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+        }
+        assertThat(coalescer.coalesceBlocking("posts/1", () -> "post 1")).isEqualTo("post 1");
+    }
+
+    @Test
+    void blockingFollowerGivesUpAfterMaxWait() throws Exception {
+        RequestCoalescer impatient = new RequestCoalescer(true, Duration.ofMillis(50), new SimpleMeterRegistry());
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch respond = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> impatient.coalesceBlocking("posts/1", () -> {
+            leaderStarted.countDown();
+            awaitQuietly(respond);
+            return "post 1";
+        }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> impatient.coalesceBlocking("posts/1", () -> "no debería llamarse"))
+                .isInstanceOfSatisfying(ExternalApiException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(504));
+
+        respond.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("post 1");
+    }
+
+    @Test
+    void blockingCompletionReleasesKey() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        coalescer.coalesceBlocking("posts/1", upstreamCalls::incrementAndGet);
+        coalescer.coalesceBlocking("posts/1", upstreamCalls::incrementAndGet);
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(requests("coalesced")).isZero();
+    }
+
+    @Test
+    void disabledCoalescerCallsUpstreamEveryTime() {
+        RequestCoalescer disabled = new RequestCoalescer(false, MAX_WAIT, new SimpleMeterRegistry());
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+
+        disabled.coalesce("posts/1", () -> {
+            upstreamCalls.incrementAndGet();
+            return response.asMono();
+        }).subscribe();
+        disabled.coalesce("posts/1", () -> {
+            upstreamCalls.incrementAndGet();
+            return response.asMono();
+        }).subscribe();
+
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    /**
+     * La siguiente petición con la misma clave vuelve a llamar al servidor.
+     */
+    private void assertNextCallReachesUpstream() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Integer result = coalescer.coalesce("posts/1", () -> Mono.fromCallable(upstreamCalls::incrementAndGet))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(result).isEqualTo(1);
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests("coalesced") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(requests("coalesced")).isEqualTo(expected);
+    }
+
+    private double requests(String result) {
+        return registry.get("http.client.coalescing.requests").tag("result", result).functionCounter().count();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.client.hedging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cuándo se envía la segunda petición, cuál gana y cuántas permite el presupuesto.
+ *
+ * Las respuestas son Mono.delay con tiempo virtual de Reactor: los retardos los fija
+ * la prueba y no hay esperas reales ni dependencia de la carga de la máquina.
+ */
+class RequestHedgerTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestHedger hedger = new RequestHedger(true, HEDGE_DELAY, Duration.ofMillis(20), 0.1, registry);
+
+    @Test
+    void fastPrimaryIsNotHedged() {
+        Responses responses = new Responses(respond("primary", 10));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge("api", responses))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(10))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertThat(responses.calls).hasValue(1);
+        assertThat(hedges("sent")).isZero();
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndTheHedgeWins() {
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        Responses responses = new Responses(
+                respond("primary", 300).doOnCancel(() -> primaryCancelled.set(true)),
+                respond("hedge", 10));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge("api", responses))
+                .expectSubscription()
+                .expectNoEvent(HEDGE_DELAY.plusMillis(10))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertThat(responses.calls).hasValue(2);
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("won")).isEqualTo(1);
+        assertThat(primaryCancelled).isTrue();
+    }
+
+    @Test
+    void primaryStillWinsIfItAnswersBeforeTheHedge() {
+        AtomicBoolean hedgeCancelled = new AtomicBoolean();
+        Responses responses = new Responses(
+                respond("primary", 80),
+                respond("hedge", 100).doOnCancel(() -> hedgeCancelled.set(true)));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge("api", responses))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(80))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertThat(hedges("sent")).isEqualTo(1);
+        assertThat(hedges("won")).isZero();
+        assertThat(hedgeCancelled).isTrue();
+    }
+
+    @Test
+    void failedHedgeKeepsWaitingForPrimary() {
+        Responses responses = new Responses(respond("primary", 300), fail(5));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge("api", responses))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(300))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertThat(hedges("won")).isZero();
+    }
+
+    @Test
+    void primaryErrorBeforeHedgeDelayIsPropagated() {
+        Responses responses = new Responses(fail(10));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge("api", responses))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(10))
+                .verifyErrorMessage("503");
+
+        assertThat(responses.calls).hasValue(1);
+        assertThat(hedges("sent")).isZero();
+    }
+
+    @Test
+    void budgetLimitsHedgesToReserveAndRatio() {
+        // Todas las primeras peticiones son lentas y todas querrían una segunda
+        int requests = 50;
+        Supplier<Mono<String>> slowOnly = () -> respond("primary", 300);
+
+        StepVerifier.withVirtualTime(() -> Flux.range(0, requests).concatMap(i -> hedger.hedge("api", slowOnly)))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(300L * requests))
+                .expectNextCount(requests)
+                .verifyComplete();
+
+        // Como mucho la reserva inicial más el 10% de las peticiones
+        assertThat(hedges("sent")).isBetween(requests * 0.1, RequestHedger.BUDGET_RESERVE + requests * 0.1);
+        assertThat(hedges("sent") + hedges("budget_exhausted")).isEqualTo(requests);
+    }
+
+    @Test
+    void budgetsAreKeptPerUpstream() {
+        RequestHedger noRatio = new RequestHedger(true, HEDGE_DELAY, Duration.ofMillis(20), 0, registry);
+        Supplier<Mono<String>> slowOnly = () -> respond("primary", 300);
+
+        StepVerifier.withVirtualTime(() -> Flux.range(0, RequestHedger.BUDGET_RESERVE + 1)
+                        .concatMap(i -> noRatio.hedge("a", slowOnly))
+                        .concatWith(noRatio.hedge("b", slowOnly)))
+                .thenAwait(Duration.ofSeconds(60))
+                .expectNextCount(RequestHedger.BUDGET_RESERVE + 2)
+                .verifyComplete();
+
+        assertThat(registry.get("http.client.hedging.requests").tag("upstream", "a").tag("result", "sent")
+                .counter().count()).isEqualTo(RequestHedger.BUDGET_RESERVE);
+        assertThat(registry.get("http.client.hedging.requests").tag("upstream", "b").tag("result", "sent")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void disabledHedgerSendsOneRequest() {
+        RequestHedger disabled = new RequestHedger(false, HEDGE_DELAY, Duration.ofMillis(20), 0.1,
+                new SimpleMeterRegistry());
+        Responses responses = new Responses(respond("primary", 300), respond("hedge", 10));
+
+        StepVerifier.withVirtualTime(() -> disabled.hedge("api", responses))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(300))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertThat(responses.calls).hasValue(1);
+    }
+
+    private double hedges(String result) {
+        return registry.get("http.client.hedging.requests").tag("upstream", "api").tag("result", result)
+                .counter().count();
+    }
+
+    /**
+     * Respuesta tras millis de tiempo virtual. Mono.defer para que el retardo se cree
+     * al suscribirse, ya dentro de StepVerifier.withVirtualTime.
+     */
+    private static Mono<String> respond(String value, long millis) {
+        return Mono.defer(() -> Mono.delay(Duration.ofMillis(millis)).thenReturn(value));
+    }
+
+    private static Mono<String> fail(long millis) {
+        return Mono.defer(() -> Mono.delay(Duration.ofMillis(millis))
+                .then(Mono.error(new IllegalStateException("503"))));
+    }
+
+    /**
+     * Devuelve una respuesta distinta en cada petición enviada (primera, segunda...).
+     */
+    private static final class Responses implements Supplier<Mono<String>> {
+
+        private final List<Mono<String>> responses;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @SafeVarargs
+        Responses(Mono<String>... responses) {
+            this.responses = List.of(responses);
+        }
+
+        @Override
+        public Mono<String> get() {
+            return responses.get(calls.getAndIncrement());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.client.resilience;
+
+import com.example.demo.client.resilience.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transiciones del circuit breaker con un reloj controlado por la prueba.
+ */
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> transitions = new ArrayList<>();
+
+    // Ventana de 10 llamadas, mínimo 4, se abre con el 50% de fallos, 2 llamadas de prueba
+    private final CircuitBreaker breaker = new CircuitBreaker("api", 10, 4, 50, Duration.ofSeconds(1),
+            OPEN_DURATION, 2, (from, to) -> transitions.add(from + "->" + to), now::get);
+
+    @Test
+    void staysClosedUntilMinimumCalls() {
+        recordCalls(3, true);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.failureRate()).isEqualTo(100);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        recordCalls(2, false);
+        recordCalls(1, true);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+
+        recordCalls(1, true);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(transitions).containsExactly("CLOSED->OPEN");
+    }
+
+    @Test
+    void slowCallsCountAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.record(false, SLOW);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void oldResultsLeaveTheSlidingWindow() {
+        CircuitBreaker sliding = new CircuitBreaker("api", 4, 4, 75, Duration.ofSeconds(1),
+                OPEN_DURATION, 1, (from, to) -> { }, now::get);
+        sliding.record(true, FAST);
+        sliding.record(true, FAST);
+        sliding.record(false, FAST);
+        sliding.record(false, FAST);
+        // Entra un éxito y sale el primer fallo: 1 de 4
+        sliding.record(false, FAST);
+        assertThat(sliding.failureRate()).isEqualTo(25);
+        assertThat(sliding.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void rejectsWhileOpenAndMovesToHalfOpenAfterOpenDuration() {
+        recordCalls(4, true);
+
+        now.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        now.addAndGet(1);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        // Solo halfOpenCalls llamadas de prueba
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulProbesWithAFreshWindow() {
+        recordCalls(4, true);
+        now.addAndGet(OPEN_DURATION.toNanos());
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.record(false, FAST);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.record(false, FAST);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.failureRate()).isZero();
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+    }
+
+    @Test
+    void halfOpenFailureReopensForAnotherFullOpenDuration() {
+        recordCalls(4, true);
+        now.addAndGet(OPEN_DURATION.toNanos());
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.record(true, FAST);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+
+        now.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThat(breaker.tryAcquire()).isFalse();
+        now.addAndGet(1);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN", "OPEN->HALF_OPEN");
+    }
+
+    @Test
+    void releaseReturnsHalfOpenPermit() {
+        recordCalls(4, true);
+        now.addAndGet(OPEN_DURATION.toNanos());
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        // Una llamada de prueba cancelada no cuenta y deja pasar otra
+        breaker.release();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+    }
+
+    private void recordCalls(int count, boolean failed) {
+        for (int i = 0; i < count; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.record(failed, FAST);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.client.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Depósitos, retiradas y agotamiento del presupuesto de reintentos.
+ */
+class RetryBudgetTest {
+
+    @Test
+    void startsWithReserveAndIsExhaustedAfterMaxWithdrawals() {
+        RetryBudget budget = new RetryBudget(0.2, 3);
+        assertThat(budget.available()).isEqualTo(3);
+
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+
+        assertThat(budget.tryWithdraw()).isFalse();
+        assertThat(budget.available()).isZero();
+    }
+
+    @Test
+    void depositsEarnOneRetryPerRatioOfCalls() {
+        RetryBudget budget = new RetryBudget(0.2, 3);
+        drain(budget);
+
+        // Con ratio 0.2 hacen falta 5 llamadas nuevas para ganar un reintento
+        for (int i = 0; i < 4; i++) {
+            budget.deposit();
+            assertThat(budget.tryWithdraw()).isFalse();
+        }
+        budget.deposit();
+        assertThat(budget.available()).isEqualTo(1);
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    void depositsAreCappedAtMax() {
+        RetryBudget budget = new RetryBudget(0.5, 2);
+
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertThat(budget.available()).isEqualTo(2);
+    }
+
+    @Test
+    void retriesStayWithinRatioOfTraffic() {
+        RetryBudget budget = new RetryBudget(0.1, 10);
+        drain(budget);
+
+        int retries = 0;
+        for (int call = 0; call < 1000; call++) {
+            budget.deposit();
+            // Cada llamada falla e intenta reintentar
+            if (budget.tryWithdraw()) {
+                retries++;
+            }
+        }
+
+        assertThat(retries).isEqualTo(100);
+    }
+
+    private static void drain(RetryBudget budget) {
+        while (budget.tryWithdraw()) {
+            // vaciar la reserva inicial
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.demo.client.resilience;
+
+import com.example.demo.exception.ExternalApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Reintentos, presupuesto, backoff con full jitter y rechazo con el circuito abierto.
+ *
+ * El reloj y el jitter los controla la prueba: no hay esperas reales. Solo
+ * defaultJitterSpreadsOverTheWholeRange usa el jitter aleatorio de producción.
+ */
+class UpstreamResilienceTest {
+
+    private static final String API = "api";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void backoffCeilingDoublesPerAttemptUpToMaxBackoff() {
+        UpstreamResilience resilience = resilience(ceiling -> ceiling);
+
+        assertThat(List.of(1, 2, 3, 4, 5, 6, 40))
+                .extracting(attempt -> resilience.backoffFor(attempt).toMillis())
+                .containsExactly(100L, 200L, 400L, 800L, 1000L, 1000L, 1000L);
+    }
+
+    @Test
+    void backoffIsAFullJitterBetweenZeroAndCeiling() {
+        List<Long> ceilings = new ArrayList<>();
+        UpstreamResilience resilience = resilience(ceiling -> {
+            ceilings.add(ceiling);
+            return 0;
+        });
+
+        assertThat(resilience.backoffFor(3)).isZero();
+        assertThat(ceilings).containsExactly(400L);
+    }
+
+    @Test
+    void defaultJitterSpreadsOverTheWholeRange() {
+        UpstreamResilience resilience = configure(new UpstreamResilience(registry));
+
+        List<Long> delays = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            delays.add(resilience.backoffFor(3).toMillis());
+        }
+
+        assertThat(delays).allSatisfy(delay -> assertThat(delay).isBetween(0L, 400L));
+        assertThat(delays.stream().mapToLong(Long::longValue).min().orElseThrow()).isLessThan(50);
+        assertThat(delays.stream().mapToLong(Long::longValue).max().orElseThrow()).isGreaterThan(350);
+    }
+
+    @Test
+    void retriesServerFailuresUpToMaxAttempts() {
+        UpstreamResilience resilience = resilience(ceiling -> 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> resilience.execute(API, true, () -> {
+            calls.incrementAndGet();
+            throw new ExternalApiException(API, "caído", 503);
+        })).isInstanceOf(ExternalApiException.class);
+
+        assertThat(calls).hasValue(3);
+        assertThat(retries("retried")).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotRetryClientErrorsOrNonIdempotentCalls() {
+        UpstreamResilience resilience = resilience(ceiling -> 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> resilience.execute(API, true, () -> {
+            calls.incrementAndGet();
+            throw new ExternalApiException(API, "no existe", 404);
+        })).isInstanceOf(ExternalApiException.class);
+        assertThatThrownBy(() -> resilience.execute(API, false, () -> {
+            calls.incrementAndGet();
+            throw new ExternalApiException(API, "caído", 503);
+        })).isInstanceOf(ExternalApiException.class);
+
+        assertThat(calls).hasValue(2);
+        assertThat(retries("retried")).isZero();
+    }
+
+    @Test
+    void exhaustedBudgetStopsRetries() {
+        UpstreamResilience resilience = resilience(ceiling -> 0);
+        ReflectionTestUtils.setField(resilience, "budgetRatio", 0.0);
+        ReflectionTestUtils.setField(resilience, "budgetMax", 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> resilience.execute(API, true, () -> {
+                calls.incrementAndGet();
+                throw new ExternalApiException(API, "caído", 503);
+            })).isInstanceOf(ExternalApiException.class);
+        }
+
+        // Primera llamada: 1 intento + 1 reintento (la reserva); segunda: sin reintentos
+        assertThat(calls).hasValue(3);
+        assertThat(retries("retried")).isEqualTo(1);
+        assertThat(retries("budget_exhausted")).isEqualTo(2);
+    }
+
+    @Test
+    void openCircuitRejectsWithoutCallingUntilOpenDurationElapses() {
+        UpstreamResilience resilience = resilience(ceiling -> 0);
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 1);
+        openCircuit(resilience);
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> resilience.execute(API, true, calls::incrementAndGet))
+                .isInstanceOfSatisfying(ExternalApiException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(503));
+        assertThat(calls).hasValue(0);
+        assertThat(registry.get("http.client.circuit.rejected").counter().count()).isEqualTo(1);
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(resilience.execute(API, true, calls::incrementAndGet)).isEqualTo(1);
+        assertThat(resilience.state(API)).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(resilience.execute(API, true, calls::incrementAndGet)).isEqualTo(2);
+        assertThat(resilience.state(API)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowCallsMeasuredWithTheClockOpenTheCircuit() {
+        UpstreamResilience resilience = resilience(ceiling -> 0);
+
+        for (int i = 0; i < 4; i++) {
+            resilience.execute(API, true, () -> now.addAndGet(Duration.ofSeconds(5).toNanos()));
+        }
+
+        assertThat(resilience.state(API)).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void monoIsResubscribedOnEachRetry() {
+        UpstreamResilience resilience = resilience(ceiling -> 0);
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        String result = resilience.executeMono(API, true, () -> Mono.defer(() ->
+                subscriptions.incrementAndGet() < 3
+                        ? Mono.error(new ExternalApiException(API, "caído", 502))
+                        : Mono.just("ok")))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(subscriptions).hasValue(3);
+    }
+
+    private void openCircuit(UpstreamResilience resilience) {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> resilience.execute(API, true, () -> {
+                throw new ExternalApiException(API, "caído", 500);
+            })).isInstanceOf(ExternalApiException.class);
+        }
+        assertThat(resilience.state(API)).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private double retries(String result) {
+        return registry.get("http.client.retry.attempts").tag("result", result).counter().count();
+    }
+
+    private UpstreamResilience resilience(LongUnaryOperator jitter) {
+        return configure(new UpstreamResilience(registry, now::get, jitter));
+    }
+
+    /**
+     * Valores por defecto salvo la ventana del circuito y las llamadas de prueba, más pequeñas.
+     */
+    private static UpstreamResilience configure(UpstreamResilience resilience) {
+        ReflectionTestUtils.setField(resilience, "enabled", true);
+        ReflectionTestUtils.setField(resilience, "windowSize", 10);
+        ReflectionTestUtils.setField(resilience, "minimumCalls", 4);
+        ReflectionTestUtils.setField(resilience, "failureRateThreshold", 50.0);
+        ReflectionTestUtils.setField(resilience, "slowCallThreshold", Duration.ofSeconds(3));
+        ReflectionTestUtils.setField(resilience, "openDuration", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(resilience, "halfOpenCalls", 2);
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 3);
+        ReflectionTestUtils.setField(resilience, "backoff", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(resilience, "maxBackoff", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(resilience, "budgetRatio", 0.2);
+        ReflectionTestUtils.setField(resilience, "budgetMax", 10);
+        return resilience;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.exception;
+
+import com.example.demo.controller.JsonPlaceholderController;
+import com.example.demo.service.JsonPlaceholderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Los errores con código HTTP propio (ResponseStatusException) no deben acabar como 500.
+ */
+class GlobalExceptionHandlerTest {
+
+    private final JsonPlaceholderService service = mock(JsonPlaceholderService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new JsonPlaceholderController(service, new ObjectMapper()))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void oversizedBatchIsBadRequest() throws Exception {
+        when(service.getMultiplePostsWebClient(anyList(), anyBoolean()))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Se pueden pedir como mucho 100 posts por lote")));
+
+        MvcResult result = mockMvc.perform(get("/api/jsonplaceholder/webclient/posts/batch").param("ids", "1,2,3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.message").value("Se pueden pedir como mucho 100 posts por lote"));
+    }
+
+    @Test
+    void unexpectedErrorsAreStillInternalServerError() throws Exception {
+        when(service.getMultiplePostsWebClient(List.of(1L), false))
+                .thenReturn(Mono.error(new IllegalStateException("boom")));
+
+        MvcResult result = mockMvc.perform(get("/api/jsonplaceholder/webclient/posts/batch").param("ids", "1"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.status").value(500));
+    }
+}
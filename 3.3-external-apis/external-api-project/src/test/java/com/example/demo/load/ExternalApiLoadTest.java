@@ -0,0 +1,161 @@
+package com.example.demo.load;
+
+import com.example.demo.support.LoadRunner;
+import com.example.demo.support.UpstreamStub;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga de todos los endpoints contra UpstreamStub (sin acceso a internet).
+ *
+ * No se ejecuta con el resto de tests: mvn test -Pload
+ *
+ * Se configura con propiedades del sistema (p. ej. -Dload.concurrency=64):
+ * - load.duration / load.warmup / load.concurrency: duración, calentamiento y hilos por endpoint
+ * - stub.latency / stub.error-rate / stub.payload-bytes: comportamiento del servidor externo simulado
+ *
+ * Imprime por endpoint peticiones/s, p50, p99, errores y memoria asignada (MB/s y bytes por petición),
+ * y guarda el mismo informe en target/load-report.csv para comparar entre ejecuciones.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ExternalApiLoadTest {
+
+    private static final Duration DURATION = UpstreamStub.parseDuration(System.getProperty("load.duration", "10s"));
+    private static final Duration WARMUP = UpstreamStub.parseDuration(System.getProperty("load.warmup", "3s"));
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+
+    private static final UpstreamStub STUB = startStub();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void upstreams(DynamicPropertyRegistry registry) {
+        registry.add("external.apis.jsonplaceholder.base-url", STUB::baseUrl);
+        registry.add("external.apis.httpbin.base-url", STUB::baseUrl);
+        // El log DEBUG de application.yml dominaría las medidas
+        registry.add("logging.level.com.example.demo", () -> "WARN");
+        registry.add("logging.level.org.springframework.web", () -> "WARN");
+        registry.add("logging.level.reactor.netty", () -> "WARN");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void allEndpoints() throws Exception {
+        List<LoadRunner.Result> results = new ArrayList<>();
+        try (LoadRunner runner = new LoadRunner()) {
+            for (Scenario scenario : scenarios()) {
+                results.add(runner.run(scenario.name(), scenario.request(), CONCURRENCY, WARMUP, DURATION));
+            }
+        }
+
+        report(results);
+        assertThat(results).allSatisfy(result -> assertThat(result.requests()).isPositive());
+    }
+
+    private List<Scenario> scenarios() {
+        String postJson = "{\"userId\":1,\"title\":\"Carga\",\"body\":\"Contenido\"}";
+        String httpBinJson = "{\"key\":\"value\",\"number\":123}";
+
+        return List.of(
+            get("GET /", "/"),
+            get("GET rt posts/{id}", n -> "/api/jsonplaceholder/resttemplate/posts/" + (n % 100 + 1)),
+            get("GET rt posts", "/api/jsonplaceholder/resttemplate/posts"),
+            get("GET rt posts/stream", "/api/jsonplaceholder/resttemplate/posts/stream"),
+            post("POST rt posts", "/api/jsonplaceholder/resttemplate/posts", postJson),
+            get("GET rt users/{id}", n -> "/api/jsonplaceholder/resttemplate/users/" + (n % 10 + 1)),
+            get("GET wc posts/{id}", n -> "/api/jsonplaceholder/webclient/posts/" + (n % 100 + 1)),
+            get("GET wc posts", "/api/jsonplaceholder/webclient/posts"),
+            get("GET wc posts/stream", "/api/jsonplaceholder/webclient/posts/stream"),
+            post("POST wc posts", "/api/jsonplaceholder/webclient/posts", postJson),
+            get("GET wc users/{id}", n -> "/api/jsonplaceholder/webclient/users/" + (n % 10 + 1)),
+            get("GET wc posts/batch", "/api/jsonplaceholder/webclient/posts/batch?ids=1,2,3,4,5,6,7,8,9,10"),
+            get("GET rt httpbin/get", "/api/httpbin/resttemplate/get"),
+            post("POST rt httpbin/post", "/api/httpbin/resttemplate/post", httpBinJson),
+            get("GET wc httpbin/get", "/api/httpbin/webclient/get"),
+            post("POST wc httpbin/post", "/api/httpbin/webclient/post", httpBinJson),
+            get("GET wc httpbin/get-with-params", "/api/httpbin/webclient/get-with-params?param1=a&param2=b"),
+            new Scenario("GET wc httpbin/get-with-headers", n -> HttpRequest.newBuilder(uri("/api/httpbin/webclient/get-with-headers"))
+                .header("X-Custom-Header", "carga").GET().build())
+        );
+    }
+
+    private Scenario get(String name, String path) {
+        URI uri = uri(path);
+        return new Scenario(name, n -> HttpRequest.newBuilder(uri).GET().build());
+    }
+
+    private Scenario get(String name, IntFunction<String> path) {
+        return new Scenario(name, n -> HttpRequest.newBuilder(uri(path.apply(n))).GET().build());
+    }
+
+    private Scenario post(String name, String path, String json) {
+        URI uri = uri(path);
+        return new Scenario(name, n -> HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void report(List<LoadRunner.Result> results) throws IOException {
+        String header = String.format(Locale.ROOT, "%-34s %9s %7s %10s %9s %9s %10s %12s",
+            "Endpoint", "Requests", "Errors", "Req/s", "p50 (ms)", "p99 (ms)", "Alloc MB/s", "Alloc B/req");
+        StringBuilder table = new StringBuilder(header).append('\n');
+        StringBuilder csv = new StringBuilder("endpoint,requests,errors,throughput,p50_ms,p99_ms,alloc_mb_s,alloc_bytes_req\n");
+
+        for (LoadRunner.Result r : results) {
+            table.append(String.format(Locale.ROOT, "%-34s %9d %7d %10.1f %9.2f %9.2f %10.1f %12d%n",
+                r.name(), r.requests(), r.errors(), r.throughput(), r.p50Millis(), r.p99Millis(),
+                r.allocationMbPerSecond(), r.allocatedBytesPerRequest()));
+            csv.append(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.2f,%.1f,%d%n",
+                r.name(), r.requests(), r.errors(), r.throughput(), r.p50Millis(), r.p99Millis(),
+                r.allocationMbPerSecond(), r.allocatedBytesPerRequest()));
+        }
+
+        System.out.printf(Locale.ROOT, "%nCarga: %d hilos, %s por endpoint (stub: latencia %s, errores %s, payload %s B)%n%s",
+            CONCURRENCY, DURATION, System.getProperty("stub.latency", "20ms"),
+            System.getProperty("stub.error-rate", "0"), System.getProperty("stub.payload-bytes", "256"), table);
+        Files.writeString(Path.of("target", "load-report.csv"), csv);
+    }
+
+    private static UpstreamStub startStub() {
+        try {
+            return new UpstreamStub(0,
+                UpstreamStub.parseDuration(System.getProperty("stub.latency", "20ms")),
+                Double.parseDouble(System.getProperty("stub.error-rate", "0")),
+                Integer.getInteger("stub.payload-bytes", 256)).start();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo arrancar el stub", e);
+        }
+    }
+
+    private record Scenario(String name, IntFunction<HttpRequest> request) {
+    }
+}
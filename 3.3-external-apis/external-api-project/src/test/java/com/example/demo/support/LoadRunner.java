@@ -0,0 +1,165 @@
+package com.example.demo.support;
+
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Generador de carga en bucle cerrado: "concurrency" hilos envían peticiones una tras otra
+ * durante un tiempo fijo y se miden throughput, latencias y memoria asignada por la aplicación.
+ *
+ * La memoria asignada se mide con com.sun.management.ThreadMXBean sumando todos los hilos
+ * de la JVM excepto los del propio generador y los de UpstreamStub, así que refleja el trabajo
+ * de Tomcat y de los clientes HTTP. Los hilos virtuales no se cuentan.
+ */
+public class LoadRunner implements AutoCloseable {
+
+    private static final String THREAD_PREFIX = "load-";
+
+    private final ExecutorService clientExecutor = Executors.newCachedThreadPool(named(THREAD_PREFIX + "client-"));
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(clientExecutor)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * @param name Nombre del escenario en el informe
+     * @param request Crea la petición n-ésima (p. ej. para variar el id)
+     */
+    public Result run(String name, IntFunction<HttpRequest> request, int concurrency,
+                      Duration warmup, Duration duration) throws InterruptedException {
+        drive(request, concurrency, warmup, null);
+
+        long allocatedBefore = applicationAllocatedBytes();
+        long start = System.nanoTime();
+        List<long[]> latencies = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        drive(request, concurrency, duration, new Recorder(latencies, errors));
+        long elapsed = System.nanoTime() - start;
+        long allocated = applicationAllocatedBytes() - allocatedBefore;
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = elapsed / 1e9;
+        return new Result(name, all.length, errors.get(), all.length / seconds,
+            percentile(all, 0.50), percentile(all, 0.99),
+            allocated / seconds / (1024 * 1024), all.length == 0 ? 0 : allocated / all.length);
+    }
+
+    @Override
+    public void close() {
+        clientExecutor.shutdownNow();
+    }
+
+    private void drive(IntFunction<HttpRequest> request, int concurrency, Duration duration, Recorder recorder)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicInteger sequence = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, named(THREAD_PREFIX + "worker-"));
+
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        boolean ok = send(request.apply(sequence.getAndIncrement()));
+                        long latency = System.nanoTime() - start;
+                        if (recorder == null) {
+                            continue;
+                        }
+                        if (!ok) {
+                            recorder.errors.incrementAndGet();
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = latency;
+                    }
+                } finally {
+                    if (recorder != null) {
+                        recorder.add(Arrays.copyOf(samples, count));
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+    }
+
+    private boolean send(HttpRequest request) {
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() < 400;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private long applicationAllocatedBytes() {
+        long[] ids = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> !thread.getName().startsWith(THREAD_PREFIX))
+                .filter(thread -> !thread.getName().startsWith("HttpClient-"))
+                .filter(thread -> !thread.getName().startsWith(UpstreamStub.THREAD_PREFIX))
+                .filter(thread -> !thread.getName().startsWith("HTTP-Dispatcher"))
+                .mapToLong(Thread::getId)
+                .toArray();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(ids)) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percentile) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Recorder(List<long[]> latencies, AtomicInteger errors) {
+        synchronized void add(long[] samples) {
+            latencies.add(samples);
+        }
+    }
+
+    /**
+     * Resultado de un escenario. Latencias en ms, asignación en MB/s y bytes por petición.
+     */
+    public record Result(String name, int requests, int errors, double throughput,
+                         double p50Millis, double p99Millis, double allocationMbPerSecond,
+                         long allocatedBytesPerRequest) {
+    }
+}
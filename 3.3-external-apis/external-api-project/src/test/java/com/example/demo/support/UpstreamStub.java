@@ -0,0 +1,165 @@
+package com.example.demo.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor local que sustituye a JSONPlaceholder y httpbin.org en pruebas de carga.
+ *
+ * Responde a las mismas rutas que usan los servicios (/posts, /posts/{id}, /users/{id},
+ * /get, /post), así se puede medir el proyecto sin acceso a internet. Se configura:
+ * - latency: latencia fija de cada respuesta
+ * - errorRate: fracción de respuestas 503 (0 = ninguna)
+ * - payloadBytes: tamaño del texto de cada post y del campo "data" de httpbin
+ *
+ * Solo usa el JDK: se puede arrancar desde target/test-classes.
+ *
+ * <pre>
+ * java -cp target/test-classes com.example.demo.support.UpstreamStub --port=8081 --latency=200ms \
+ *     --error-rate=0.01 --payload-bytes=1024
+ * </pre>
+ */
+public class UpstreamStub implements AutoCloseable {
+
+    static final String THREAD_PREFIX = "upstream-stub-";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final double errorRate;
+    private final String payload;
+
+    public UpstreamStub(int port, Duration latency) throws IOException {
+        this(port, latency, 0, 32);
+    }
+
+    public UpstreamStub(int port, Duration latency, double errorRate, int payloadBytes) throws IOException {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.payload = "x".repeat(Math.max(0, payloadBytes));
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(
+            runnable -> new Thread(runnable, THREAD_PREFIX + threads.incrementAndGet()));
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public UpstreamStub start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return URL base para external.apis.*.base-url
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream requestBody = exchange.getRequestBody()) {
+            requestBody.readAllBytes();
+            sleep(latency);
+
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            int status = "POST".equals(method) && path.equals("/posts") ? 201 : 200;
+            byte[] body = body(method, path).getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private String body(String method, String path) {
+        if (path.equals("/posts") && "GET".equals(method)) {
+            StringBuilder posts = new StringBuilder("[");
+            for (int id = 1; id <= 100; id++) {
+                posts.append(id > 1 ? "," : "").append(post(id));
+            }
+            return posts.append(']').toString();
+        }
+        if (path.equals("/posts")) {
+            return post(101);
+        }
+        if (path.startsWith("/posts/")) {
+            return post(Long.parseLong(path.substring("/posts/".length())));
+        }
+        if (path.startsWith("/users/")) {
+            long id = Long.parseLong(path.substring("/users/".length()));
+            return "{\"id\":" + id + ",\"name\":\"User " + id + "\",\"username\":\"user" + id
+                + "\",\"email\":\"user" + id + "@example.com\",\"phone\":\"555-0100\",\"website\":\"example.com\"}";
+        }
+        return "{\"url\":\"" + path + "\",\"headers\":{},\"origin\":\"127.0.0.1\",\"args\":{},\"data\":\""
+            + payload + "\"}";
+    }
+
+    private String post(long id) {
+        return "{\"userId\":1,\"id\":" + id + ",\"title\":\"Post " + id + "\",\"body\":\"" + payload + "\"}";
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8081;
+        Duration latency = Duration.ZERO;
+        double errorRate = 0;
+        int payloadBytes = 32;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--latency=")) {
+                latency = parseDuration(arg.substring("--latency=".length()));
+            } else if (arg.startsWith("--error-rate=")) {
+                errorRate = Double.parseDouble(arg.substring("--error-rate=".length()));
+            } else if (arg.startsWith("--payload-bytes=")) {
+                payloadBytes = Integer.parseInt(arg.substring("--payload-bytes=".length()));
+            }
+        }
+        UpstreamStub stub = new UpstreamStub(port, latency, errorRate, payloadBytes).start();
+        System.out.println("Stub escuchando en " + stub.baseUrl() + " (latencia " + latency.toMillis()
+            + " ms, errores " + errorRate + ", payload " + payloadBytes + " B)");
+    }
+
+    public static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+}
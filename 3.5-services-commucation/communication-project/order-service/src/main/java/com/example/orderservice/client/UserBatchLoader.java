@@ -0,0 +1,223 @@
+package com.example.orderservice.client;
+
+import com.example.orderservice.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Agrupa las búsquedas de usuarios por ID en llamadas a POST /users/batch (estilo DataLoader).
+ *
+ * Las peticiones que llegan dentro de una ventana de max-wait se acumulan; la ventana se
+ * despacha al cumplirse el tiempo o al llegar a max-batch-size IDs, con una sola llamada
+ * al user-service. Un ID que ya está en la ventana o en una llamada en curso no se vuelve
+ * a pedir: se comparte el mismo futuro entre todas las peticiones concurrentes.
+ *
+ * Un usuario que no existe completa su futuro con null (como un 404).
+ *
+ * Las llamadas se ejecutan en un pool propio de user-loader.parallelism hilos: si una
+ * lectura necesita varios lotes (más IDs que max-batch-size), se piden en paralelo
+ * sin abrir más conexiones simultáneas a user-service que ese límite.
+ *
+ * Métricas:
+ * - user.loader.batch.size{trigger=size|time}: IDs por llamada
+ * - user.loader.batch.wait: cuánto esperó el primer ID de la ventana antes de despacharse
+ * - user.loader.requests{result=queued|deduplicated}: IDs pedidos y cuántos se ahorraron
+ *
+ * Subir max-wait agrupa más IDs por llamada (menos carga en user-service) a costa de
+ * sumar esa espera a la latencia de cada petición.
+ */
+@Slf4j
+@Component
+public class UserBatchLoader {
+
+    private final UserClient userClient;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(named("user-loader-timer-"));
+    private final ExecutorService dispatcher;
+
+    // Ventana actual (protegida por this) y llamadas en curso
+    private Map<Long, CompletableFuture<User>> pending = new LinkedHashMap<>();
+    private long windowStart;
+    private ScheduledFuture<?> timer;
+    private final Map<Long, CompletableFuture<User>> inFlight = new ConcurrentHashMap<>();
+
+    private final DistributionSummary sizeTriggered;
+    private final DistributionSummary timeTriggered;
+    private final Timer batchWait;
+    private final Counter queued;
+    private final Counter deduplicated;
+
+    public UserBatchLoader(UserClient userClient,
+                           @Value("${user-loader.max-batch-size:100}") int maxBatchSize,
+                           @Value("${user-loader.max-wait:5ms}") Duration maxWait,
+                           @Value("${user-loader.parallelism:4}") int parallelism,
+                           MeterRegistry meterRegistry) {
+        this.userClient = userClient;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWait = maxWait;
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, parallelism), named("user-loader-"));
+        this.sizeTriggered = batchSize(meterRegistry, "size");
+        this.timeTriggered = batchSize(meterRegistry, "time");
+        this.batchWait = Timer.builder("user.loader.batch.wait")
+                .description("Tiempo desde el primer ID de la ventana hasta el despacho")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.queued = requests(meterRegistry, "queued");
+        this.deduplicated = requests(meterRegistry, "deduplicated");
+    }
+
+    /**
+     * Pide un usuario; se despacha junto con los demás IDs de la ventana.
+     *
+     * @return Futuro con el usuario, o null si no existe
+     */
+    public CompletableFuture<User> load(Long id) {
+        CompletableFuture<User> running = inFlight.get(id);
+        if (running != null) {
+            deduplicated.increment();
+            return running;
+        }
+
+        Map<Long, CompletableFuture<User>> full = null;
+        CompletableFuture<User> future;
+        synchronized (this) {
+            future = pending.get(id);
+            if (future != null) {
+                deduplicated.increment();
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(id, future);
+            queued.increment();
+
+            if (pending.size() == 1) {
+                windowStart = System.nanoTime();
+                timer = scheduler.schedule(this::dispatchOnTimeout, maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (pending.size() >= maxBatchSize) {
+                full = takeWindow();
+            }
+        }
+
+        if (full != null) {
+            dispatch(full, sizeTriggered);
+        }
+        return future;
+    }
+
+    /**
+     * Deja de compartir la llamada en curso de este ID: el siguiente load(id) hace una
+     * petición nueva en lugar de recibir la que se envió antes de un cambio del usuario.
+     * Quien ya esperaba la llamada anterior sigue recibiendo su resultado.
+     */
+    public void forget(Long id) {
+        inFlight.remove(id);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    private void dispatchOnTimeout() {
+        Map<Long, CompletableFuture<User>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = takeWindow();
+        }
+        dispatch(batch, timeTriggered);
+    }
+
+    /**
+     * Cierra la ventana actual (llamar con el lock) y registra cuánto esperó.
+     */
+    private Map<Long, CompletableFuture<User>> takeWindow() {
+        Map<Long, CompletableFuture<User>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        batchWait.record(System.nanoTime() - windowStart, TimeUnit.NANOSECONDS);
+        inFlight.putAll(batch);
+        return batch;
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<User>> batch, DistributionSummary size) {
+        size.record(batch.size());
+        dispatcher.execute(() -> {
+            Map<Long, User> byId = new HashMap<>();
+            Exception failure = null;
+            try {
+                log.debug("Pidiendo {} usuarios en una llamada a user-service", batch.size());
+                for (User user : userClient.getUsersByIds(batch.keySet())) {
+                    byId.put(user.getId(), user);
+                }
+            } catch (Exception e) {
+                log.error("Error al obtener {} usuarios: {}", batch.size(), e.getMessage());
+                failure = e;
+            }
+
+            // Soltar los IDs antes de completar: quien vea el resultado y vuelva a pedir el usuario
+            // (p. ej. tras invalidarlo en caché) hace una llamada nueva en lugar de recibir esta.
+            // Solo si sigue siendo nuestro futuro: un lote posterior puede haber pedido el mismo ID
+            batch.forEach((id, future) -> inFlight.remove(id, future));
+
+            if (failure != null) {
+                Exception error = failure;
+                batch.values().forEach(future -> future.completeExceptionally(error));
+            } else {
+                batch.forEach((id, future) -> future.complete(byId.get(id)));
+            }
+        });
+    }
+
+    private static DistributionSummary batchSize(MeterRegistry registry, String trigger) {
+        return DistributionSummary.builder("user.loader.batch.size")
+                .description("IDs por llamada a /users/batch")
+                .tag("trigger", trigger)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("user.loader.requests")
+                .description("IDs pedidos al loader")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.orderservice.client;
+
+import com.example.orderservice.model.User;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Caché local de usuarios delante de UserBatchLoader.
+ *
+ * - Acotada a user-cache.max-size usuarios
+ * - Un usuario es fresco durante refresh-after; al pedirlo después se sirve el valor guardado
+ *   y se recarga en segundo plano (stale-while-revalidate). Si user-service falla, se sigue
+ *   sirviendo el valor anterior hasta expire-after
+ * - Los usuarios que no existen también se guardan (caché negativa) durante negative-ttl,
+ *   para no preguntar una y otra vez por IDs inexistentes
+ * - user-service puede avisar de altas y cambios (POST /internal/user-events) y la entrada
+ *   se invalida al momento, sin esperar al TTL
+ *
+ * Publica las métricas de Caffeine con cache=users (cache.gets{result=hit|miss}, cache.size...).
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+    private final UserBatchLoader userLoader;
+    private final AsyncLoadingCache<Long, Optional<User>> users;
+
+    public UserCache(UserBatchLoader userLoader,
+                     @Value("${user-cache.max-size:10000}") long maxSize,
+                     @Value("${user-cache.refresh-after:30s}") Duration refreshAfter,
+                     @Value("${user-cache.expire-after:10m}") Duration expireAfter,
+                     @Value("${user-cache.negative-ttl:30s}") Duration negativeTtl,
+                     MeterRegistry meterRegistry) {
+        this.userLoader = userLoader;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UserExpiry(expireAfter, negativeTtl))
+                .refreshAfterWrite(refreshAfter)
+                .recordStats()
+                .buildAsync((id, executor) -> userLoader.load(id).thenApply(Optional::ofNullable));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    /**
+     * @return Futuro con el usuario, o null si no existe
+     */
+    public CompletableFuture<User> get(Long id) {
+        return users.get(id).thenApply(user -> user.orElse(null));
+    }
+
+    /**
+     * Versión bloqueante de get() que propaga el error original de la llamada Feign.
+     */
+    public User getNow(Long id) {
+        try {
+            return get(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Descarta el usuario: la siguiente lectura lo vuelve a pedir a user-service.
+     *
+     * También se olvida la llamada en curso del loader: se envió antes del cambio y su
+     * respuesta podría traer el usuario antiguo, que se volvería a guardar hasta expire-after.
+     */
+    public void invalidate(Long id) {
+        log.debug("Invalidando usuario {} en caché", id);
+        userLoader.forget(id);
+        users.synchronous().invalidate(id);
+    }
+
+    /**
+     * Caducidad por entrada: los usuarios existentes duran expire-after y los inexistentes negative-ttl.
+     */
+    private record UserExpiry(Duration expireAfter, Duration negativeTtl) implements Expiry<Long, Optional<User>> {
+
+        @Override
+        public long expireAfterCreate(Long id, Optional<User> user, long currentTime) {
+            return (user.isPresent() ? expireAfter : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long id, Optional<User> user, long currentTime, long currentDuration) {
+            return expireAfterCreate(id, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long id, Optional<User> user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -4,7 +4,10 @@ import com.example.orderservice.model.User;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,4 +36,11 @@ public interface UserClient {
      */
     @GetMapping("/users/{id}")
     User getUserById(@PathVariable Long id);
+
+    /**
+     * Obtiene varios usuarios en una sola llamada (los IDs inexistentes se omiten)
+     * Equivale a: POST http://user-service/users/batch con body [1, 2, 3]
+     */
+    @PostMapping("/users/batch")
+    List<User> getUsersByIds(@RequestBody Collection<Long> ids);
 }
@@ -31,6 +31,7 @@ public class HomeController {
         endpoints.put("GET /orders/{id}", "Obtiene un pedido por ID (con información de usuario vía Feign)");
         endpoints.put("POST /orders", "Crea un nuevo pedido (valida usuario vía Feign)");
         endpoints.put("GET /orders/users", "Obtiene usuarios usando Feign Client directamente");
+        endpoints.put("POST /internal/user-events", "Recibe avisos de cambios de usuarios desde User Service");
         
         response.put("endpoints", endpoints);
         
@@ -39,6 +40,7 @@ public class HomeController {
         description.put("GET /orders/{id}", "Retorna un pedido específico con información del usuario obtenida vía Feign Client");
         description.put("POST /orders", "Crea un nuevo pedido. Valida que el usuario exista usando Feign Client. Body: {userId, productName, amount}");
         description.put("GET /orders/users", "Ejemplo directo de uso de Feign Client - Obtiene usuarios del User Service");
+        description.put("POST /internal/user-events", "Invalida un usuario en la caché local. Lo llama User Service al crear o actualizar usuarios. Body: {type, userId}");
         
         response.put("endpointDescriptions", description);
         
@@ -1,5 +1,6 @@
 package com.example.orderservice.controller;
 
+import com.example.orderservice.model.EnrichedOrder;
 import com.example.orderservice.model.Order;
 import com.example.orderservice.model.User;
 import com.example.orderservice.service.OrderService;
@@ -26,13 +27,13 @@ public class OrderController {
     private final OrderService orderService;
 
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
+    public ResponseEntity<List<EnrichedOrder>> getAllOrders() {
         log.info("GET /orders - Obteniendo todos los pedidos");
         return ResponseEntity.ok(orderService.getAllOrders());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<EnrichedOrder> getOrderById(@PathVariable Long id) {
         log.info("GET /orders/{} - Obteniendo pedido por ID", id);
         return orderService.getOrderById(id)
                 .map(ResponseEntity::ok)
@@ -40,10 +41,10 @@ public class OrderController {
     }
 
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody Order order) {
+    public ResponseEntity<EnrichedOrder> createOrder(@RequestBody Order order) {
         log.info("POST /orders - Creando nuevo pedido para usuario: {}", order.getUserId());
         try {
-            Order createdOrder = orderService.createOrder(order);
+            EnrichedOrder createdOrder = orderService.createOrder(order);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -0,0 +1,33 @@
+package com.example.orderservice.controller;
+
+import com.example.orderservice.client.UserCache;
+import com.example.orderservice.model.UserEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Recibe los avisos de user-service (user-events.subscribers) cuando un usuario
+ * se crea o cambia, e invalida ese usuario en UserCache.
+ * 
+ * Es opcional: sin avisos, la caché se actualiza igualmente al cumplirse su TTL.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class UserEventController {
+
+    private final UserCache userCache;
+
+    @PostMapping("/internal/user-events")
+    public ResponseEntity<Void> onUserEvent(@RequestBody UserEvent event) {
+        log.info("POST /internal/user-events - {} usuario {}", event.getType(), event.getUserId());
+        if (event.getUserId() != null) {
+            userCache.invalidate(event.getUserId());
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
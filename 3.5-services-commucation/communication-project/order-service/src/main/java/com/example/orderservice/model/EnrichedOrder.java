@@ -0,0 +1,31 @@
+package com.example.orderservice.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista de un pedido con la información del usuario, tal como se devuelve en la API
+ * 
+ * Se crea una nueva en cada respuesta a partir del Order guardado y del User de
+ * user-service: el Order compartido entre peticiones no se modifica al leerlo.
+ */
+public record EnrichedOrder(
+        Long id,
+        Long userId,
+        String productName,
+        Double amount,
+        LocalDateTime orderDate,
+        String status,
+        // Información del usuario obtenida del user-service (null si no se pudo obtener)
+        String userName,
+        String userEmail) {
+
+    /**
+     * @param user Usuario del pedido, o null si no se pudo obtener a tiempo
+     */
+    public static EnrichedOrder of(Order order, User user) {
+        return new EnrichedOrder(order.getId(), order.getUserId(), order.getProductName(),
+                order.getAmount(), order.getOrderDate(), order.getStatus(),
+                user != null ? user.getName() : null,
+                user != null ? user.getEmail() : null);
+    }
+}
@@ -8,6 +8,9 @@ import java.time.LocalDateTime;
 
 /**
  * Modelo de Pedido
+ * 
+ * Es lo que se guarda y lo que se recibe al crear un pedido. La información
+ * del usuario se añade en cada respuesta con EnrichedOrder.
  */
 @Data
 @NoArgsConstructor
@@ -19,8 +22,4 @@ public class Order {
     private Double amount;
     private LocalDateTime orderDate;
     private String status;
-    
-    // Información del usuario obtenida del user-service
-    private String userName;
-    private String userEmail;
 }
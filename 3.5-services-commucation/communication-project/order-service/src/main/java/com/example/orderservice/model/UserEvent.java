@@ -0,0 +1,18 @@
+package com.example.orderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aviso de user-service de que un usuario se creó o cambió
+ * 
+ * Debe coincidir con el modelo UserEvent del user-service.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEvent {
+    private String type;     // CREATED o UPDATED
+    private Long userId;
+}
@@ -1,34 +1,68 @@
 package com.example.orderservice.service;
 
+import com.example.orderservice.client.UserCache;
 import com.example.orderservice.client.UserClient;
+import com.example.orderservice.model.EnrichedOrder;
 import com.example.orderservice.model.Order;
 import com.example.orderservice.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Servicio para gestión de pedidos
  * 
  * Este servicio utiliza Feign Client para obtener información
- * de usuarios desde el user-service.
+ * de usuarios desde el user-service. Las búsquedas por ID pasan por
+ * UserCache y, si el usuario no está en caché, por UserBatchLoader,
+ * que agrupa las de peticiones concurrentes en una sola llamada a /users/batch.
+ *
+ * Al leer pedidos se espera a los usuarios como mucho order-enrichment.timeout:
+ * si se cumple, los pedidos cuyo usuario no llegó se devuelven sin userName/userEmail.
+ *
+ * Los Order guardados no se modifican al leerlos: cada respuesta crea sus propios
+ * EnrichedOrder, así las lecturas concurrentes no compiten por los mismos objetos.
  */
 @Slf4j
 @Service
 public class OrderService {
 
     private final UserClient userClient;
+    private final UserCache userCache;
+    private final Duration enrichmentTimeout;
+    private final Counter enrichmentTimeouts;
     private final ConcurrentHashMap<Long, Order> orders = new ConcurrentHashMap<>();
     private final AtomicLong idGenerator = new AtomicLong(1);
 
-    public OrderService(UserClient userClient) {
+    public OrderService(UserClient userClient, UserCache userCache,
+                        @Value("${order-enrichment.timeout:2s}") Duration enrichmentTimeout,
+                        MeterRegistry meterRegistry) {
         this.userClient = userClient;
+        this.userCache = userCache;
+        this.enrichmentTimeout = enrichmentTimeout;
+        this.enrichmentTimeouts = Counter.builder("orders.enrichment.timeouts")
+                .description("Lecturas de pedidos que se devolvieron sin esperar a todos los usuarios")
+                .register(meterRegistry);
         // Inicializar datos de ejemplo
         initializeOrders();
     }
@@ -75,67 +109,63 @@ public class OrderService {
 
     /**
      * Obtiene todos los pedidos con información del usuario
+     *
+     * Los usuarios se piden a /users/batch con los userId distintos (agrupados con los de
+     * otras peticiones concurrentes), en lugar de una llamada por pedido. Si hay más IDs que
+     * user-loader.max-batch-size, los lotes se piden en paralelo y la latencia es la del
+     * lote más lento, no la suma.
      */
-    public List<Order> getAllOrders() {
+    public List<EnrichedOrder> getAllOrders() {
         log.info("Obteniendo todos los pedidos");
         List<Order> ordersList = new ArrayList<>(orders.values());
         
-        // Enriquecer pedidos con información del usuario usando Feign Client
-        ordersList.forEach(order -> {
-            try {
-                User user = userClient.getUserById(order.getUserId());
-                if (user != null) {
-                    order.setUserName(user.getName());
-                    order.setUserEmail(user.getEmail());
-                }
-            } catch (Exception e) {
-                log.error("Error al obtener información del usuario {}: {}", order.getUserId(), e.getMessage());
-            }
-        });
+        Set<Long> userIds = ordersList.stream()
+                .map(Order::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
         
-        return ordersList;
+        // Enriquecer pedidos con información del usuario usando Feign Client
+        Map<Long, User> usersById = loadUsers(userIds);
+        return ordersList.stream()
+                .map(order -> EnrichedOrder.of(order, usersById.get(order.getUserId())))
+                .toList();
     }
 
     /**
      * Obtiene un pedido por ID con información del usuario
      */
-    public Optional<Order> getOrderById(Long id) {
+    public Optional<EnrichedOrder> getOrderById(Long id) {
         log.info("Buscando pedido con ID: {}", id);
         Order order = orders.get(id);
-        
-        if (order != null) {
-            // Obtener información del usuario usando Feign Client
-            try {
-                User user = userClient.getUserById(order.getUserId());
-                if (user != null) {
-                    order.setUserName(user.getName());
-                    order.setUserEmail(user.getEmail());
-                }
-            } catch (Exception e) {
-                log.error("Error al obtener información del usuario {}: {}", order.getUserId(), e.getMessage());
-            }
+        if (order == null) {
+            return Optional.empty();
         }
         
-        return Optional.ofNullable(order);
+        // Obtener información del usuario usando Feign Client
+        User user = loadUsers(List.of(order.getUserId())).get(order.getUserId());
+        return Optional.of(EnrichedOrder.of(order, user));
     }
 
     /**
      * Crea un nuevo pedido
      * Valida que el usuario exista usando Feign Client
      */
-    public Order createOrder(Order order) {
+    public EnrichedOrder createOrder(Order order) {
         log.info("Creando nuevo pedido para usuario: {}", order.getUserId());
         
         // Validar que el usuario exista usando Feign Client
+        User user;
         try {
-            User user = userClient.getUserById(order.getUserId());
+            user = userCache.getNow(order.getUserId());
+            if (user == null) {
+                // El "no existe" puede venir de la caché negativa, guardado antes de que se diera
+                // de alta el usuario: para una escritura se confirma con user-service
+                userCache.invalidate(order.getUserId());
+                user = userCache.getNow(order.getUserId());
+            }
             if (user == null) {
                 throw new IllegalArgumentException("Usuario con ID " + order.getUserId() + " no encontrado");
             }
-            
-            // Enriquecer el pedido con información del usuario
-            order.setUserName(user.getName());
-            order.setUserEmail(user.getEmail());
         } catch (Exception e) {
             log.error("Error al validar usuario: {}", e.getMessage());
             throw new IllegalArgumentException("No se pudo validar el usuario: " + e.getMessage());
@@ -149,7 +179,40 @@ public class OrderService {
         orders.put(id, order);
         
         log.info("Pedido creado exitosamente con ID: {}", id);
-        return order;
+        // Enriquecer la respuesta con información del usuario
+        return EnrichedOrder.of(order, user);
+    }
+
+    /**
+     * Pide los usuarios y espera como mucho order-enrichment.timeout.
+     * 
+     * Devuelve los que llegaron a tiempo: los que faltan (por el plazo o por un error
+     * en su lote) no aparecen en el mapa y su pedido se devuelve sin enriquecer.
+     */
+    private Map<Long, User> loadUsers(Collection<Long> userIds) {
+        Map<Long, CompletableFuture<User>> futures = new HashMap<>();
+        userIds.forEach(userId -> futures.put(userId, userCache.get(userId)));
+        
+        try {
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .get(enrichmentTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            enrichmentTimeouts.increment();
+            log.warn("Plazo de {} ms agotado esperando {} usuarios; se devuelven los que llegaron",
+                    enrichmentTimeout.toMillis(), userIds.size());
+        } catch (ExecutionException e) {
+            log.error("Error al obtener información de usuarios {}: {}", userIds, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        Map<Long, User> users = new HashMap<>();
+        futures.forEach((userId, future) -> {
+            if (future.isDone() && !future.isCompletedExceptionally() && future.join() != null) {
+                users.put(userId, future.join());
+            }
+        });
+        return users;
     }
 
     /**
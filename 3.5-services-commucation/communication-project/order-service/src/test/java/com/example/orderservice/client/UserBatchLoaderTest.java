@@ -0,0 +1,220 @@
+package com.example.orderservice.client;
+
+import com.example.orderservice.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Despacho por tamaño y por tiempo, deduplicación y propagación de errores del UserBatchLoader.
+ */
+class UserBatchLoaderTest {
+
+    private static final Duration LONG_WAIT = Duration.ofMinutes(1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RecordingUserClient userClient = new RecordingUserClient();
+    private UserBatchLoader loader;
+
+    @AfterEach
+    void tearDown() {
+        userClient.release();
+        if (loader != null) {
+            loader.shutdown();
+        }
+    }
+
+    @Test
+    void fullWindowIsDispatchedWithoutWaiting() {
+        // max-wait de un minuto: solo el tamaño puede despachar la ventana
+        loader = new UserBatchLoader(userClient, 3, LONG_WAIT, 1, registry);
+
+        List<CompletableFuture<User>> futures = List.of(loader.load(1L), loader.load(2L), loader.load(3L));
+
+        assertThat(join(futures)).extracting(User::getId).containsExactly(1L, 2L, 3L);
+        assertThat(userClient.calls()).containsExactly(List.of(1L, 2L, 3L));
+        assertThat(batches("size")).isEqualTo(1);
+        assertThat(batches("time")).isZero();
+    }
+
+    @Test
+    void partialWindowIsDispatchedAfterMaxWait() {
+        loader = new UserBatchLoader(userClient, 100, Duration.ofMillis(20), 1, registry);
+
+        List<CompletableFuture<User>> futures = List.of(loader.load(1L), loader.load(2L));
+
+        assertThat(join(futures)).extracting(User::getId).containsExactly(1L, 2L);
+        assertThat(userClient.calls()).containsExactly(List.of(1L, 2L));
+        assertThat(batches("time")).isEqualTo(1);
+        assertThat(batches("size")).isZero();
+        assertThat(registry.get("user.loader.batch.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void largeWindowIsSplitIntoBatchesOfMaxSize() {
+        loader = new UserBatchLoader(userClient, 2, Duration.ofMillis(20), 2, registry);
+
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            futures.add(loader.load(id));
+        }
+
+        assertThat(join(futures)).extracting(User::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(userClient.calls()).containsExactlyInAnyOrder(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+    }
+
+    @Test
+    void duplicateIdsInTheWindowShareOneFuture() {
+        loader = new UserBatchLoader(userClient, 100, Duration.ofMillis(20), 1, registry);
+
+        CompletableFuture<User> first = loader.load(1L);
+        CompletableFuture<User> second = loader.load(1L);
+        CompletableFuture<User> other = loader.load(2L);
+
+        assertThat(second).isSameAs(first);
+        join(List.of(first, other));
+        assertThat(userClient.calls()).containsExactly(List.of(1L, 2L));
+        assertThat(requests("queued")).isEqualTo(2);
+        assertThat(requests("deduplicated")).isEqualTo(1);
+    }
+
+    @Test
+    void idInFlightIsNotRequestedAgainAndIsReleasedAfterwards() throws Exception {
+        loader = new UserBatchLoader(userClient, 1, LONG_WAIT, 1, registry);
+        userClient.blockCalls();
+
+        CompletableFuture<User> first = loader.load(1L);
+        userClient.awaitCallStarted();
+        // La llamada con el ID 1 sigue en curso: se reutiliza su futuro
+        assertThat(loader.load(1L)).isSameAs(first);
+
+        userClient.release();
+        assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(requests("deduplicated")).isEqualTo(1);
+
+        // Terminada la llamada, el ID se vuelve a pedir
+        CompletableFuture<User> again = loader.load(1L);
+        assertThat(again).isNotSameAs(first);
+        assertThat(again.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(userClient.calls()).containsExactly(List.of(1L), List.of(1L));
+    }
+
+    @Test
+    void missingUsersCompleteWithNull() {
+        loader = new UserBatchLoader(userClient, 2, LONG_WAIT, 1, registry);
+        userClient.respondWith(ids -> ids.stream().filter(id -> id != 404L).map(UserBatchLoaderTest::user).toList());
+
+        CompletableFuture<User> existing = loader.load(1L);
+        CompletableFuture<User> missing = loader.load(404L);
+
+        assertThat(existing.join().getId()).isEqualTo(1L);
+        assertThat(missing.join()).isNull();
+    }
+
+    @Test
+    void failureReachesEveryCallerOfTheBatchAndReleasesIds() {
+        loader = new UserBatchLoader(userClient, 3, LONG_WAIT, 1, registry);
+        IllegalStateException failure = new IllegalStateException("user-service no disponible");
+        userClient.respondWith(ids -> {
+            throw failure;
+        });
+
+        List<CompletableFuture<User>> futures = List.of(loader.load(1L), loader.load(2L), loader.load(3L));
+
+        for (CompletableFuture<User> future : futures) {
+            assertThatThrownBy(future::join).isInstanceOf(CompletionException.class).hasCause(failure);
+        }
+
+        // El error no se queda cacheado: los IDs se vuelven a pedir
+        userClient.respondWith(ids -> ids.stream().map(UserBatchLoaderTest::user).toList());
+        List<CompletableFuture<User>> retried = List.of(loader.load(1L), loader.load(2L), loader.load(3L));
+        assertThat(retried).doesNotContainAnyElementsOf(futures);
+        assertThat(join(retried)).extracting(User::getId).containsExactly(1L, 2L, 3L);
+        assertThat(userClient.calls()).hasSize(2);
+    }
+
+    private double batches(String trigger) {
+        return registry.get("user.loader.batch.size").tag("trigger", trigger).summary().count();
+    }
+
+    private double requests(String result) {
+        return registry.get("user.loader.requests").tag("result", result).counter().count();
+    }
+
+    private static List<User> join(List<CompletableFuture<User>> futures) {
+        return futures.stream().map(future -> future.orTimeout(5, TimeUnit.SECONDS).join()).toList();
+    }
+
+    private static User user(Long id) {
+        return new User(id, "User " + id, "user" + id + "@example.com", "Calle " + id);
+    }
+
+    /**
+     * user-service simulado: guarda los IDs de cada llamada a /users/batch.
+     */
+    private static class RecordingUserClient implements UserClient {
+
+        private final List<List<Long>> calls = new ArrayList<>();
+        private volatile Function<Collection<Long>, List<User>> responder =
+                ids -> ids.stream().map(UserBatchLoaderTest::user).toList();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        @Override
+        public List<User> getAllUsers() {
+            return List.of();
+        }
+
+        @Override
+        public User getUserById(Long id) {
+            throw new UnsupportedOperationException("UserBatchLoader debe usar /users/batch");
+        }
+
+        @Override
+        public List<User> getUsersByIds(Collection<Long> ids) {
+            synchronized (this) {
+                calls.add(List.copyOf(ids));
+            }
+            started.countDown();
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return responder.apply(ids);
+        }
+
+        void respondWith(Function<Collection<Long>, List<User>> responder) {
+            this.responder = responder;
+        }
+
+        void blockCalls() {
+            gate = new CountDownLatch(1);
+        }
+
+        void awaitCallStarted() throws InterruptedException {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        synchronized List<List<Long>> calls() {
+            return List.copyOf(calls);
+        }
+    }
+}
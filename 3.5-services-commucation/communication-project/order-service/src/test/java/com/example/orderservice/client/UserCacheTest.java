@@ -0,0 +1,154 @@
+package com.example.orderservice.client;
+
+import com.example.orderservice.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Caché de usuarios: aciertos, caché negativa, invalidación (también con una llamada en curso)
+ * y errores de user-service.
+ */
+class UserCacheTest {
+
+    private static final long MISSING = 404L;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountingUserClient userClient = new CountingUserClient();
+    private UserBatchLoader loader;
+    private UserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        loader = new UserBatchLoader(userClient, 100, Duration.ofMillis(1), 1, registry);
+        cache = new UserCache(loader, 1000, Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(1),
+                registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userClient.release();
+        loader.shutdown();
+    }
+
+    @Test
+    void cachedUserIsServedWithoutCallingUserService() {
+        assertThat(cache.getNow(1L).getName()).isEqualTo("User 1 v1");
+        assertThat(cache.getNow(1L).getName()).isEqualTo("User 1 v1");
+
+        assertThat(userClient.calls).hasValue(1);
+        assertThat(registry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void missingUserIsCachedAsNegative() {
+        assertThat(cache.getNow(MISSING)).isNull();
+        assertThat(cache.getNow(MISSING)).isNull();
+
+        assertThat(userClient.calls).hasValue(1);
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        assertThat(cache.getNow(1L).getName()).isEqualTo("User 1 v1");
+
+        cache.invalidate(1L);
+
+        assertThat(cache.getNow(1L).getName()).isEqualTo("User 1 v2");
+        assertThat(userClient.calls).hasValue(2);
+    }
+
+    @Test
+    void invalidateDuringInFlightLoadDoesNotReuseTheStaleCall() throws Exception {
+        // La llamada v1 sale antes del cambio del usuario y se queda en curso
+        userClient.blockCalls();
+        CompletableFuture<User> beforeUpdate = cache.get(1L);
+        userClient.awaitCallStarted();
+
+        // Llega el aviso del cambio mientras la llamada v1 sigue en curso
+        cache.invalidate(1L);
+        CompletableFuture<User> afterUpdate = cache.get(1L);
+        userClient.release();
+
+        assertThat(beforeUpdate.get(5, TimeUnit.SECONDS).getName()).isEqualTo("User 1 v1");
+        assertThat(afterUpdate.get(5, TimeUnit.SECONDS).getName()).isEqualTo("User 1 v2");
+        assertThat(cache.getNow(1L).getName()).isEqualTo("User 1 v2");
+        assertThat(userClient.calls).hasValue(2);
+    }
+
+    @Test
+    void userServiceErrorIsPropagatedAndNotCached() {
+        userClient.failing = true;
+        assertThatThrownBy(() -> cache.getNow(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("user-service no disponible");
+
+        userClient.failing = false;
+        assertThat(cache.getNow(1L).getId()).isEqualTo(1L);
+        assertThat(userClient.calls).hasValue(2);
+    }
+
+    /**
+     * user-service simulado: cada llamada devuelve una versión nueva de los usuarios pedidos.
+     */
+    private static class CountingUserClient implements UserClient {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile boolean failing;
+
+        @Override
+        public List<User> getAllUsers() {
+            return List.of();
+        }
+
+        @Override
+        public User getUserById(Long id) {
+            throw new UnsupportedOperationException("UserCache debe cargar con /users/batch");
+        }
+
+        @Override
+        public List<User> getUsersByIds(Collection<Long> ids) {
+            int version = calls.incrementAndGet();
+            started.countDown();
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new IllegalStateException("user-service no disponible");
+            }
+            return ids.stream()
+                    .filter(id -> id != MISSING)
+                    .map(id -> new User(id, "User " + id + " v" + version, "user" + id + "@example.com", "Calle " + id))
+                    .toList();
+        }
+
+        void blockCalls() {
+            gate = new CountDownLatch(1);
+        }
+
+        void awaitCallStarted() throws InterruptedException {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void release() {
+            gate.countDown();
+        }
+    }
+}
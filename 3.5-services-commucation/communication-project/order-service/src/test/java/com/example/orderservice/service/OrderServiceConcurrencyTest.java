@@ -0,0 +1,187 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.client.UserBatchLoader;
+import com.example.orderservice.client.UserCache;
+import com.example.orderservice.client.UserClient;
+import com.example.orderservice.model.EnrichedOrder;
+import com.example.orderservice.model.Order;
+import com.example.orderservice.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lecturas concurrentes de pedidos mientras los usuarios cambian en user-service.
+ *
+ * Cada recarga de usuarios devuelve una versión nueva ("User 1 v7" / "user1-v7@example.com").
+ * Si las lecturas escribieran userName y userEmail en los Order compartidos, todas las respuestas
+ * serían el mismo objeto y una lectura posterior cambiaría lo que otra ya devolvió: la prueba
+ * guarda lo que se vio al leer cada respuesta y comprueba que sigue igual al final, algo que
+ * fallaba siempre con el código que modificaba los Order (en cuanto cambia la versión).
+ * También comprueba que cada respuesta es coherente (nombre y email de la misma versión) y que
+ * el Order guardado no se toca.
+ *
+ * No mide contención ni rendimiento: solo que las respuestas son instantáneas independientes.
+ */
+class OrderServiceConcurrencyTest {
+
+    private static final int READERS = 8;
+    private static final int READS_PER_READER = 300;
+
+    private final AtomicInteger version = new AtomicInteger();
+    private UserBatchLoader userLoader;
+    private UserCache userCache;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserClient userClient = new VersionedUserClient();
+        userLoader = new UserBatchLoader(userClient, 100, Duration.ofMillis(1), 4, registry);
+        userCache = new UserCache(userLoader, 1000, Duration.ofMinutes(1), Duration.ofMinutes(10),
+                Duration.ofSeconds(30), registry);
+        orderService = new OrderService(userClient, userCache, Duration.ofSeconds(5), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userLoader.shutdown();
+    }
+
+    @Test
+    void parallelReadsReturnConsistentUsersWithoutTouchingStoredOrders() throws Exception {
+        Order stored = new Order();
+        stored.setUserId(2L);
+        stored.setProductName("Teclado mecánico");
+        stored.setAmount(49.99);
+        Long storedId = orderService.createOrder(stored).id();
+        String storedBefore = stored.toString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean reading = new AtomicBoolean(true);
+        try {
+            // Fuerza recargas (nuevas versiones de los usuarios) durante las lecturas
+            Future<?> invalidator = executor.submit(() -> {
+                await(start);
+                while (reading.get()) {
+                    userCache.invalidate(1L);
+                    userCache.invalidate(2L);
+                    sleep(1);
+                }
+            });
+
+            List<Future<List<Seen>>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> {
+                    await(start);
+                    List<Seen> seen = new ArrayList<>();
+                    for (int read = 0; read < READS_PER_READER; read++) {
+                        orderService.getAllOrders().forEach(order -> seen.add(Seen.of(order)));
+                        orderService.getOrderById(storedId).ifPresent(order -> seen.add(Seen.of(order)));
+                    }
+                    return seen;
+                }));
+            }
+
+            start.countDown();
+            List<Seen> seen = new ArrayList<>();
+            for (Future<List<Seen>> reader : readers) {
+                seen.addAll(reader.get(60, TimeUnit.SECONDS));
+            }
+            reading.set(false);
+            invalidator.get(5, TimeUnit.SECONDS);
+
+            assertThat(seen).hasSize(READERS * READS_PER_READER * 5);
+            // Ninguna lectura posterior cambió una respuesta ya devuelta
+            assertThat(seen).allSatisfy(Seen::assertUnchanged);
+            List<EnrichedOrder> responses = seen.stream().map(Seen::order).toList();
+            assertThat(responses).allSatisfy(OrderServiceConcurrencyTest::assertConsistent);
+            // Los usuarios cambiaron durante la prueba y se vieron varias versiones
+            assertThat(responses.stream().map(EnrichedOrder::userName).distinct().count()).isGreaterThan(2);
+        } finally {
+            reading.set(false);
+            executor.shutdownNow();
+        }
+
+        assertThat(stored.toString()).isEqualTo(storedBefore);
+    }
+
+    private static void assertConsistent(EnrichedOrder order) {
+        assertThat(order.userName()).isNotNull();
+        String nameVersion = order.userName().substring(order.userName().lastIndexOf('v') + 1);
+        assertThat(order.userName()).startsWith("User " + order.userId() + " v");
+        assertThat(order.userEmail()).isEqualTo("user" + order.userId() + "-v" + nameVersion + "@example.com");
+    }
+
+    /**
+     * Una respuesta y el usuario que mostraba en el momento de leerla.
+     */
+    private record Seen(EnrichedOrder order, String userName, String userEmail) {
+
+        static Seen of(EnrichedOrder order) {
+            return new Seen(order, order.userName(), order.userEmail());
+        }
+
+        void assertUnchanged() {
+            assertThat(order.userName()).isEqualTo(userName);
+            assertThat(order.userEmail()).isEqualTo(userEmail);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * user-service simulado: cada llamada a /users/batch devuelve una versión nueva de los usuarios.
+     */
+    private class VersionedUserClient implements UserClient {
+
+        @Override
+        public List<User> getAllUsers() {
+            return List.of();
+        }
+
+        @Override
+        public User getUserById(Long id) {
+            throw new UnsupportedOperationException("OrderService debe usar /users/batch");
+        }
+
+        @Override
+        public List<User> getUsersByIds(Collection<Long> ids) {
+            int current = version.incrementAndGet();
+            return ids.stream()
+                    .map(id -> new User(id, "User " + id + " v" + current,
+                            "user" + id + "-v" + current + "@example.com", "Calle " + id))
+                    .toList();
+        }
+    }
+}
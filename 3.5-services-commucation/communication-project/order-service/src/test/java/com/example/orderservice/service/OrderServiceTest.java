@@ -0,0 +1,115 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.client.UserBatchLoader;
+import com.example.orderservice.client.UserCache;
+import com.example.orderservice.client.UserClient;
+import com.example.orderservice.model.EnrichedOrder;
+import com.example.orderservice.model.Order;
+import com.example.orderservice.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Validación del usuario al crear pedidos con la caché negativa de UserCache.
+ */
+class OrderServiceTest {
+
+    private final DirectoryUserClient userClient = new DirectoryUserClient();
+    private UserBatchLoader userLoader;
+    private UserCache userCache;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        userLoader = new UserBatchLoader(userClient, 100, Duration.ofMillis(1), 1, registry);
+        // negative-ttl largo: sin la revalidación el "no existe" duraría toda la prueba
+        userCache = new UserCache(userLoader, 1000, Duration.ofMinutes(1), Duration.ofMinutes(10),
+                Duration.ofMinutes(10), registry);
+        orderService = new OrderService(userClient, userCache, Duration.ofSeconds(5), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userLoader.shutdown();
+    }
+
+    @Test
+    void userCreatedAfterAFailedLookupCanOrderRightAway() {
+        // Una lectura anterior guardó que el usuario 7 no existe (caché negativa)
+        assertThat(userCache.getNow(7L)).isNull();
+
+        // user-service da de alta al usuario sin avisar a order-service
+        userClient.existing.add(7L);
+
+        EnrichedOrder created = orderService.createOrder(order(7L));
+
+        assertThat(created.userName()).isEqualTo("User 7");
+        assertThat(userClient.calls).hasValue(2);
+    }
+
+    @Test
+    void missingUserIsRejected() {
+        assertThatThrownBy(() -> orderService.createOrder(order(404L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Usuario con ID 404 no encontrado");
+    }
+
+    @Test
+    void cachedUserIsNotFetchedAgain() {
+        userClient.existing.add(1L);
+
+        orderService.createOrder(order(1L));
+        orderService.createOrder(order(1L));
+
+        assertThat(userClient.calls).hasValue(1);
+    }
+
+    private static Order order(Long userId) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setProductName("Teclado mecánico");
+        order.setAmount(49.99);
+        return order;
+    }
+
+    /**
+     * user-service simulado: solo devuelve los usuarios dados de alta en existing.
+     */
+    private static class DirectoryUserClient implements UserClient {
+
+        private final Set<Long> existing = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public List<User> getAllUsers() {
+            return List.of();
+        }
+
+        @Override
+        public User getUserById(Long id) {
+            throw new UnsupportedOperationException("OrderService debe usar /users/batch");
+        }
+
+        @Override
+        public List<User> getUsersByIds(Collection<Long> ids) {
+            calls.incrementAndGet();
+            return ids.stream()
+                    .filter(existing::contains)
+                    .map(id -> new User(id, "User " + id, "user" + id + "@example.com", "Calle " + id))
+                    .toList();
+        }
+    }
+}
@@ -29,6 +29,8 @@ public class HomeController {
         endpoints.put("GET /users", "Obtiene todos los usuarios");
         endpoints.put("GET /users/{id}", "Obtiene un usuario por ID");
         endpoints.put("POST /users", "Crea un nuevo usuario");
+        endpoints.put("PUT /users/{id}", "Actualiza un usuario");
+        endpoints.put("POST /users/batch", "Obtiene varios usuarios por ID en una sola llamada");
         
         response.put("endpoints", endpoints);
         
@@ -36,6 +38,8 @@ public class HomeController {
         description.put("GET /users", "Retorna una lista de todos los usuarios registrados");
         description.put("GET /users/{id}", "Retorna la información de un usuario específico por su ID");
         description.put("POST /users", "Crea un nuevo usuario. Body: {name, email, address}");
+        description.put("PUT /users/{id}", "Reemplaza los datos de un usuario existente. Body: {name, email, address}");
+        description.put("POST /users/batch", "Retorna los usuarios cuyos IDs se envían en el body (los inexistentes se omiten). Body: [1, 2, 3]");
         
         response.put("endpointDescriptions", description);
         
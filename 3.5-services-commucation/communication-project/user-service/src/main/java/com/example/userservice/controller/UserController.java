@@ -38,10 +38,29 @@ public class UserController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Obtiene varios usuarios por ID en una sola petición (evita una llamada por usuario).
+     * Se usa POST para que la lista de IDs vaya en el body y no limite el tamaño de la URL.
+     * Los IDs que no existen se omiten de la respuesta.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<User>> getUsersByIds(@RequestBody List<Long> ids) {
+        log.info("POST /users/batch - Obteniendo {} usuarios por ID", ids.size());
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
     @PostMapping
     public ResponseEntity<User> createUser(@RequestBody User user) {
         log.info("POST /users - Creando nuevo usuario: {}", user.getName());
         User createdUser = userService.createUser(user);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
     }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<User> updateUser(@PathVariable Long id, @RequestBody User user) {
+        log.info("PUT /users/{} - Actualizando usuario", id);
+        return userService.updateUser(id, user)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
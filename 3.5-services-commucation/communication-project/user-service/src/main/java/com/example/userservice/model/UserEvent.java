@@ -0,0 +1,16 @@
+package com.example.userservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aviso que se envía a los servicios suscritos cuando un usuario se crea o cambia
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEvent {
+    private String type;     // CREATED o UPDATED
+    private Long userId;
+}
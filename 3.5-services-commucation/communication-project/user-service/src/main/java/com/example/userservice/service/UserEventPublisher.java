@@ -0,0 +1,72 @@
+package com.example.userservice.service;
+
+import com.example.userservice.model.UserEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Avisa a otros servicios cuando un usuario se crea o cambia, para que invaliden
+ * sus cachés (por ejemplo, UserCache de order-service).
+ * 
+ * Las URLs se configuran en user-events.subscribers (vacío = no se avisa a nadie).
+ * El envío es asíncrono y sin reintentos: si un aviso se pierde, el consumidor
+ * se actualiza igualmente al caducar su caché.
+ */
+@Slf4j
+@Component
+public class UserEventPublisher {
+
+    private final List<String> subscribers;
+    private final RestClient restClient;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UserEventPublisher(@Value("${user-events.subscribers:}") List<String> subscribers,
+                              @Value("${user-events.timeout:2s}") Duration timeout) {
+        this.subscribers = subscribers.stream().filter(url -> !url.isBlank()).toList();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    public void publish(String type, Long userId) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        UserEvent event = new UserEvent(type, userId);
+        executor.execute(() -> subscribers.forEach(url -> send(url, event)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void send(String url, UserEvent event) {
+        try {
+            restClient.post()
+                    .uri(url)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(event)
+                    .retrieve()
+                    .toBodilessEntity();
+            log.debug("Aviso {} del usuario {} enviado a {}", event.getType(), event.getUserId(), url);
+        } catch (Exception e) {
+            log.warn("No se pudo avisar a {} del usuario {}: {}", url, event.getUserId(), e.getMessage());
+        }
+    }
+}
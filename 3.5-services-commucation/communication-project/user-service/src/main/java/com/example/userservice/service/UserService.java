@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -19,8 +21,10 @@ public class UserService {
 
     private final ConcurrentHashMap<Long, User> users = new ConcurrentHashMap<>();
     private final AtomicLong idGenerator = new AtomicLong(1);
+    private final UserEventPublisher eventPublisher;
 
-    public UserService() {
+    public UserService(UserEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
         // Datos de ejemplo
         initializeUsers();
     }
@@ -41,14 +45,41 @@ public class UserService {
         return Optional.ofNullable(users.get(id));
     }
 
+    /**
+     * Obtiene varios usuarios en una sola llamada.
+     * Los IDs repetidos se ignoran y los que no existen no aparecen en el resultado.
+     */
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        log.info("Buscando {} usuarios por ID", ids.size());
+        List<User> found = new ArrayList<>(ids.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            User user = id != null ? users.get(id) : null;
+            if (user != null) {
+                found.add(user);
+            }
+        }
+        return found;
+    }
+
     public User createUser(User user) {
         log.info("Creando nuevo usuario: {}", user.getName());
         Long id = idGenerator.getAndIncrement();
         user.setId(id);
         users.put(id, user);
+        eventPublisher.publish("CREATED", id);
         return user;
     }
 
+    public Optional<User> updateUser(Long id, User user) {
+        log.info("Actualizando usuario con ID: {}", id);
+        user.setId(id);
+        User updated = users.computeIfPresent(id, (key, current) -> user);
+        if (updated != null) {
+            eventPublisher.publish("UPDATED", id);
+        }
+        return Optional.ofNullable(updated);
+    }
+
     private void saveUser(User user) {
         users.put(user.getId(), user);
         if (user.getId() >= idGenerator.get()) {